@@ -0,0 +1,22 @@
+package adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Epic;
+
+import java.io.IOException;
+
+public class EpicAdapter extends TypeAdapter<Epic> {
+
+    @Override
+    public void write(final JsonWriter jsonWriter, final Epic task) throws IOException {
+        TaskFields.write(jsonWriter, task);
+    }
+
+    @Override
+    public Epic read(final JsonReader jsonReader) throws IOException {
+        final TaskFields fields = TaskFields.read(jsonReader);
+        return fields == null ? null : fields.toEpic();
+    }
+}
@@ -0,0 +1,22 @@
+package adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Subtask;
+
+import java.io.IOException;
+
+public class SubtaskAdapter extends TypeAdapter<Subtask> {
+
+    @Override
+    public void write(final JsonWriter jsonWriter, final Subtask task) throws IOException {
+        TaskFields.write(jsonWriter, task);
+    }
+
+    @Override
+    public Subtask read(final JsonReader jsonReader) throws IOException {
+        final TaskFields fields = TaskFields.read(jsonReader);
+        return fields == null ? null : fields.toSubtask();
+    }
+}
@@ -0,0 +1,26 @@
+package adapters;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import model.Task;
+
+import java.io.IOException;
+
+/**
+ * Writes any task by its runtime type, so a subtask in a {@code List<Task>} keeps its {@code epicId}.
+ * Reads a plain {@link Task}, whatever extra fields the JSON carries.
+ */
+public class TaskAdapter extends TypeAdapter<Task> {
+
+    @Override
+    public void write(final JsonWriter jsonWriter, final Task task) throws IOException {
+        TaskFields.write(jsonWriter, task);
+    }
+
+    @Override
+    public Task read(final JsonReader jsonReader) throws IOException {
+        final TaskFields fields = TaskFields.read(jsonReader);
+        return fields == null ? null : fields.toTask();
+    }
+}
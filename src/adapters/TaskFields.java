@@ -0,0 +1,255 @@
+package adapters;
+
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import model.TaskType;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The JSON shape shared by the task adapters, written field by field without reflection:
+ * <pre>
+ * {"epicId": 1, "id": 5, "name": "...", "description": "...", "status": "NEW",
+ *  "startTime": "2024-06-26T20:00:00", "duration": "PT15M", "endTime": "2024-06-26T20:15:00"}
+ * </pre>
+ * {@code epicId} is written for subtasks only, null fields are left out.
+ * Missing time fields are read as the model constructors default them, a missing end time is derived.
+ */
+final class TaskFields {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private Integer id;
+    private Integer epicId;
+    private String name;
+    private String description;
+    private TaskStatus status;
+    private LocalDateTime startTime;
+    private Duration duration;
+    private LocalDateTime endTime;
+
+    private TaskFields() {
+    }
+
+    static void write(JsonWriter out, Task task) throws IOException {
+        if (task == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        if (task.getType() == TaskType.SUBTASK) {
+            out.name("epicId").value(task.getEpicId());
+        }
+        out.name("id").value(task.getId());
+        out.name("name").value(task.getName());
+        out.name("description").value(task.getDescription());
+        out.name("status").value(task.getStatus() == null ? null : task.getStatus().name());
+        out.name("startTime").value(format(task.getStartTime()));
+        out.name("duration").value(task.getDuration() == null ? null : task.getDuration().toString());
+        out.name("endTime").value(format(task.getEndTime()));
+        out.endObject();
+    }
+
+    /**
+     * Reads one task object, null for a JSON null. Unknown fields are skipped.
+     */
+    static TaskFields read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final TaskFields fields = new TaskFields();
+        in.beginObject();
+        while (in.hasNext()) {
+            final String field = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (field) {
+                case "id" -> fields.id = in.nextInt();
+                case "epicId" -> fields.epicId = in.nextInt();
+                case "name" -> fields.name = in.nextString();
+                case "description" -> fields.description = in.nextString();
+                case "status" -> fields.status = parseStatus(in.nextString());
+                case "startTime" -> fields.startTime = parseTime(in.nextString());
+                case "duration" -> fields.duration = parseDuration(in.nextString());
+                case "endTime" -> fields.endTime = parseTime(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return fields;
+    }
+
+    Task toTask() {
+        return complete(new Task(name, description, status));
+    }
+
+    Epic toEpic() {
+        final Epic epic = new Epic(name, description);
+        if (status != null) {
+            epic.setStatus(status);
+        }
+        return complete(epic);
+    }
+
+    Subtask toSubtask() {
+        return complete(new Subtask(id, epicId, name, description, status,
+                startTime != null ? startTime : LocalDateTime.now(),
+                duration != null ? duration : Duration.ZERO));
+    }
+
+    private <T extends Task> T complete(T task) {
+        if (id != null) {
+            task.setId(id);
+        }
+        if (startTime != null) {
+            task.setStartTime(startTime);
+        }
+        if (duration != null) {
+            task.setDuration(duration);
+        }
+        task.setEndTime(endTime != null ? endTime : task.getStartTime().plus(task.getDuration()));
+        return task;
+    }
+
+    // Prints what ISO_LOCAL_DATE_TIME prints, without the formatter's per-call context and builder
+    private static String format(LocalDateTime time) {
+        if (time == null) {
+            return null;
+        }
+        final int year = time.getYear();
+        if (year < 0 || year > 9999) {
+            return FORMATTER.format(time);
+        }
+        final char[] chars = new char[29];
+        digits(chars, 0, year, 4);
+        chars[4] = '-';
+        digits(chars, 5, time.getMonthValue(), 2);
+        chars[7] = '-';
+        digits(chars, 8, time.getDayOfMonth(), 2);
+        chars[10] = 'T';
+        digits(chars, 11, time.getHour(), 2);
+        chars[13] = ':';
+        digits(chars, 14, time.getMinute(), 2);
+        chars[16] = ':';
+        digits(chars, 17, time.getSecond(), 2);
+        int length = 19;
+        int nano = time.getNano();
+        if (nano != 0) {
+            chars[19] = '.';
+            digits(chars, 20, nano, 9);
+            length = 29;
+            while (chars[length - 1] == '0') {
+                length--;
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    // Parses the yyyy-MM-ddTHH:mm:ss[.fraction] shape written above, anything else goes through the formatter
+    private static LocalDateTime parseTime(String text) {
+        final int length = text.length();
+        if (length >= 19 && length <= 29 && length != 20 && text.charAt(4) == '-' && text.charAt(7) == '-'
+                && text.charAt(10) == 'T' && text.charAt(13) == ':' && text.charAt(16) == ':'
+                && (length == 19 || text.charAt(19) == '.')) {
+            final int year = number(text, 0, 4);
+            final int month = number(text, 5, 7);
+            final int day = number(text, 8, 10);
+            final int hour = number(text, 11, 13);
+            final int minute = number(text, 14, 16);
+            final int second = number(text, 17, 19);
+            int nano = length == 19 ? 0 : number(text, 20, length);
+            for (int i = length; i < 29; i++) {
+                nano *= 10;
+            }
+            if ((year | month | day | hour | minute | second | nano) >= 0) {
+                try {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                } catch (DateTimeException e) {
+                    throw new JsonSyntaxException("Invalid date time: " + text);
+                }
+            }
+        }
+        try {
+            return LocalDateTime.parse(text, FORMATTER);
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException("Invalid date time: " + text);
+        }
+    }
+
+    // Parses the PTnHnMnS shape Duration.toString writes for whole seconds, without the regex behind Duration.parse
+    private static Duration parseDuration(String text) {
+        final int length = text.length();
+        if (length > 2 && length <= 16 && text.startsWith("PT")) {
+            long seconds = 0;
+            long value = 0;
+            boolean inNumber = false;
+            int lastUnit = -1;
+            int i = 2;
+            for (; i < length; i++) {
+                final char c = text.charAt(i);
+                final int unit = "HMS".indexOf(c);
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    inNumber = true;
+                } else if (inNumber && unit > lastUnit) {
+                    seconds += value * (unit == 0 ? 3600 : unit == 1 ? 60 : 1);
+                    value = 0;
+                    inNumber = false;
+                    lastUnit = unit;
+                } else {
+                    break;
+                }
+            }
+            if (i == length && !inNumber) {
+                return Duration.ofSeconds(seconds);
+            }
+        }
+        try {
+            return Duration.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new JsonSyntaxException("Invalid duration: " + text);
+        }
+    }
+
+    private static void digits(char[] chars, int offset, int value, int width) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    // The decimal value of text[from, to), or -1 if it holds anything but digits
+    private static int number(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static TaskStatus parseStatus(String text) {
+        try {
+            return TaskStatus.valueOf(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Unknown task status: " + text);
+        }
+    }
+}
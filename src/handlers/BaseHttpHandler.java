@@ -2,28 +2,53 @@ package handlers;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import exceptions.ManagerSaveException;
 import exceptions.NotFoundException;
 import exceptions.ValidationException;
+import model.Task;
 import server.MethodType;
 import service.TaskManager;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
 
 public abstract class BaseHttpHandler implements HttpHandler {
 
     protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    private static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+    private static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+    // Below about one packet compression saves nothing worth the CPU and the chunked framing
+    private static final int GZIP_THRESHOLD = 1400;
+    private static final int GZIP_LEVEL = Deflater.BEST_SPEED;
+
     protected final TaskManager manager;
     protected final Gson gson;
+    protected final TaskJsonCache cache;
+
+    // Keeps the tags of this handler apart from those a previous run handed out for the same versions
+    private final String tagPrefix = Long.toHexString(ThreadLocalRandom.current().nextLong());
 
     public BaseHttpHandler(TaskManager manager, Gson gson) {
+        this(manager, gson, new TaskJsonCache(gson, DEFAULT_CACHE_BYTES));
+    }
+
+    public BaseHttpHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
         this.manager = manager;
         this.gson = gson;
+        this.cache = cache;
     }
 
     protected abstract void handleGet(HttpExchange exchange, String[] pathParts) throws IOException;
@@ -64,6 +89,95 @@ public abstract class BaseHttpHandler implements HttpHandler {
         }
     }
 
+    /**
+     * Tags the response with an ETag made of the given version stamps and, if the client already
+     * holds that version, answers 304 Not Modified without producing the body.
+     * The stamps have to be taken before the data they describe is read.
+     *
+     * @return true if the response has been sent
+     */
+    protected boolean notModified(HttpExchange exchange, long... versions) throws IOException {
+        final StringBuilder tag = new StringBuilder(32).append('"').append(tagPrefix);
+        for (long version : versions) {
+            tag.append('.').append(Long.toHexString(version));
+        }
+        final String etag = tag.append('"').toString();
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (matches(exchange.getRequestHeaders().get("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sends the task as JSON, encoded once per revision, see {@link TaskJsonCache#get}.
+     *
+     * @param version the stamp of the manager, taken before the task was read
+     */
+    protected void sendTask(HttpExchange exchange, Task task, long version, int statusCode) throws IOException {
+        final byte[] response = cache.get(task, version, manager.getRevision(task.getId()));
+        try (OutputStream out = openJson(exchange, statusCode)) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * Sends the task a write request carried, encoded without the cache: it is the request's own object,
+     * not necessarily what the manager stores under its id.
+     */
+    protected void sendTask(HttpExchange exchange, Task task, int statusCode) throws IOException {
+        sendJson(exchange, statusCode, writer -> gson.toJson(task, task.getClass(), writer));
+    }
+
+    /**
+     * Streams the tasks as a JSON array, joining the JSON
+     * of each task as kept by the {@link TaskJsonCache} instead of serializing the whole list again.
+     * A list too large for the cache would only evict itself, it is serialized directly.
+     *
+     * @param version the stamp of the manager, taken before the tasks were read
+     */
+    protected void sendTasks(HttpExchange exchange, Collection<? extends Task> tasks, long version, int statusCode)
+            throws IOException {
+        if (!cache.fits(tasks.size())) {
+            sendJson(exchange, statusCode, writer -> gson.toJson(tasks, Object.class, writer));
+            return;
+        }
+        try (OutputStream out = new BufferedOutputStream(openJson(exchange, statusCode), RESPONSE_BUFFER_SIZE)) {
+            out.write('[');
+            boolean first = true;
+            for (Task task : tasks) {
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(cache.get(task, version, manager.getRevision(task.getId())));
+                first = false;
+            }
+            out.write(']');
+        }
+    }
+
+    /**
+     * Streams a response written by the handler itself. The status is sent before the body,
+     * so everything that can fail with an error status has to happen before this call.
+     */
+    protected void sendJson(HttpExchange exchange, int statusCode, JsonBody body) throws IOException {
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(openJson(exchange, statusCode), DEFAULT_CHARSET), RESPONSE_BUFFER_SIZE))) {
+            body.write(writer);
+        }
+    }
+
+    /**
+     * Opens a JSON response body: small bodies are sent plain with their length, larger ones are
+     * streamed in chunks and compressed if the request allows it, see {@link ResponseBody}.
+     */
+    private OutputStream openJson(HttpExchange exchange, int statusCode) {
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        return new ResponseBody(exchange, statusCode, acceptsGzip(exchange), GZIP_THRESHOLD, GZIP_LEVEL);
+    }
+
     private MethodType getMethod(HttpExchange exchange) {
         return MethodType.valueOf(exchange.getRequestMethod());
     }
@@ -72,7 +186,63 @@ public abstract class BaseHttpHandler implements HttpHandler {
         return exchange.getRequestURI().getPath().split("/");
     }
 
+    // Accept-Encoding lists codings with optional weights, gzip;q=0 or *;q=0 refuses it
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        final List<String> headers = exchange.getRequestHeaders().get("Accept-Encoding");
+        if (headers == null) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String header : headers) {
+            for (String coding : header.split(",")) {
+                final String[] parts = coding.split(";");
+                final String name = parts[0].trim().toLowerCase(Locale.ROOT);
+                if (name.equals("gzip") || name.equals("x-gzip")) {
+                    return weight(parts) > 0;
+                }
+                if (name.equals("*")) {
+                    accepted = weight(parts) > 0;
+                }
+            }
+        }
+        return accepted;
+    }
+
+    private static double weight(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            final String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // If-None-Match holds a list of tags, weak or strong, or * for any
+    private static boolean matches(List<String> headers, String etag) {
+        if (headers == null) {
+            return false;
+        }
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void handleException(HttpExchange exchange, Exception e) throws IOException {
+        exchange.getResponseHeaders().remove("ETag");
         switch (e) {
             case JsonSyntaxException exception ->
                     sendText(exchange, "Invalid JSON Syntax: " + exception.getMessage(), 400);
@@ -92,4 +262,9 @@ public abstract class BaseHttpHandler implements HttpHandler {
             default -> sendText(exchange, "Internal Server Error: " + e.getMessage(), 500);
         }
     }
+
+    @FunctionalInterface
+    protected interface JsonBody {
+        void write(JsonWriter writer) throws IOException;
+    }
 }
@@ -0,0 +1,134 @@
+package handlers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.sun.net.httpserver.HttpExchange;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import service.TaskBatch;
+import service.TaskManager;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * {@code POST /batch} applies an array of operations as one {@link TaskBatch}, all of them or none:
+ * <pre>
+ * [{"op": "create", "type": "task", "task": {...}},
+ *  {"op": "update", "type": "subtask", "task": {"id": 7, ...}},
+ *  {"op": "delete", "id": 3}]
+ * </pre>
+ * The request is parsed one operation at a time, and the results are streamed back in the same order
+ * as {@code {"index": 0, "op": "create", "task": {...}}} without building the whole response in memory.
+ */
+public class BatchHandler extends BaseHttpHandler {
+
+    public BatchHandler(TaskManager manager, Gson gson) {
+        super(manager, gson);
+    }
+
+    @Override
+    protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
+        sendText(exchange, "Method Not Allowed", 405);
+    }
+
+    @Override
+    protected void handlePost(HttpExchange exchange, String[] pathParts) throws IOException {
+        if (!isBatchPath(pathParts)) {
+            sendText(exchange, "Invalid Request", 400);
+            return;
+        }
+        final TaskBatch batch = readBatch(exchange);
+        final List<Task> results = manager.applyBatch(batch);
+        final List<TaskBatch.Operation> operations = batch.getOperations();
+
+        sendJson(exchange, 200, writer -> {
+            writer.beginArray();
+            for (int i = 0; i < results.size(); i++) {
+                final Task result = results.get(i);
+                writer.beginObject();
+                writer.name("index").value(i);
+                writer.name("op").value(operations.get(i).getKind().name().toLowerCase(Locale.ROOT));
+                writer.name("task");
+                gson.toJson(result, result.getClass(), writer);
+                writer.endObject();
+            }
+            writer.endArray();
+        });
+    }
+
+    @Override
+    protected void handleDelete(HttpExchange exchange, String[] pathParts) throws IOException {
+        sendText(exchange, "Method Not Allowed", 405);
+    }
+
+    private TaskBatch readBatch(HttpExchange exchange) throws IOException {
+        final TaskBatch batch = new TaskBatch();
+        try (JsonReader reader = new JsonReader(new InputStreamReader(exchange.getRequestBody(), DEFAULT_CHARSET))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                addOperation(batch, JsonParser.parseReader(reader).getAsJsonObject());
+            }
+            reader.endArray();
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e.getMessage());
+        }
+        return batch;
+    }
+
+    private void addOperation(TaskBatch batch, JsonObject operation) {
+        final String op = string(operation, "op");
+        switch (op) {
+            case "create" -> batch.create(readTask(operation));
+            case "update" -> batch.update(readTask(operation));
+            case "delete" -> batch.delete(Integer.parseInt(string(operation, "id")));
+            default -> throw new JsonSyntaxException("Unknown batch operation: " + op);
+        }
+    }
+
+    private Task readTask(JsonObject operation) {
+        final JsonElement json = operation.get("task");
+        if (json == null || !json.isJsonObject()) {
+            throw new JsonSyntaxException("Batch operation has no task");
+        }
+        final TaskType type;
+        try {
+            type = TaskType.valueOf(string(operation, "type").toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("Unknown task type: " + operation.get("type"));
+        }
+        return switch (type) {
+            case TASK -> gson.fromJson(json, Task.class);
+            case SUBTASK -> gson.fromJson(json, Subtask.class);
+            case EPIC -> {
+                // only the name and description of an epic come from the client, the rest is derived
+                final Epic parsed = gson.fromJson(json, Epic.class);
+                final Epic epic = new Epic(parsed.getName(), parsed.getDescription());
+                if (parsed.getId() != null) {
+                    epic.setId(parsed.getId());
+                }
+                yield epic;
+            }
+        };
+    }
+
+    private static String string(JsonObject object, String name) {
+        final JsonElement element = object.get(name);
+        if (element == null || !element.isJsonPrimitive()) {
+            throw new JsonSyntaxException("Batch operation has no " + name);
+        }
+        return element.getAsString();
+    }
+
+    private boolean isBatchPath(String[] pathParts) {
+        return pathParts.length == 2 && pathParts[1].equals("batch");
+    }
+}
@@ -3,6 +3,7 @@ package handlers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import model.Epic;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -14,21 +15,29 @@ public class EpicHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    public EpicHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
+        super(manager, gson, cache);
+    }
+
     @Override
     protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         if (isEpicPath(pathParts)) {
-            String jsonResponse = gson.toJson(manager.getAllEpics());
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getVersion(TaskType.EPIC))) {
+                sendTasks(exchange, manager.getAllEpics(), version, 200);
+            }
 
         } else if (isEpicPathWithId(pathParts)) {
             final int epicId = Integer.parseInt(pathParts[2]);
-            String jsonResponse = gson.toJson(manager.getEpicById(epicId));
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            sendTask(exchange, manager.getEpicById(epicId), version, 200);
 
         } else if (isEpicPathWithIdAndSubtasks(pathParts)) {
             final int epicId = Integer.parseInt(pathParts[2]);
-            String jsonResponse = gson.toJson(manager.getAllSubtasksEpic(epicId));
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getVersion(TaskType.EPIC))) {
+                sendTasks(exchange, manager.getAllSubtasksEpic(epicId), version, 200);
+            }
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -39,8 +48,7 @@ public class EpicHandler extends BaseHttpHandler {
         final Epic requestEpic = getRequestEpic(exchange);
         if (isEpicPath(pathParts)) {
             manager.createEpic(requestEpic);
-            String jsonResponse = gson.toJson(requestEpic);
-            sendText(exchange, jsonResponse, 201);
+            sendTask(exchange, requestEpic, 201);
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -0,0 +1,106 @@
+package handlers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a GZIP member (RFC 1952) with a raw {@link Deflater} that is kept per platform thread
+ * and reset for every response, instead of the new native deflater and buffers a
+ * {@link java.util.zip.GZIPOutputStream} allocates each time.
+ * Virtual threads are short-lived, so they get a fresh deflater that is released on close.
+ */
+final class GzipStream extends OutputStream {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final ThreadLocal<Codec> CODECS = ThreadLocal.withInitial(Codec::new);
+
+    private final OutputStream out;
+    private final Codec codec;
+    private final boolean pooled;
+    private final byte[] single = new byte[1];
+
+    private long size;
+    private boolean closed;
+
+    GzipStream(OutputStream out, int level) throws IOException {
+        this.out = out;
+        this.pooled = !Thread.currentThread().isVirtual();
+        this.codec = pooled ? CODECS.get() : new Codec();
+        codec.reset(level);
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (len == 0) {
+            return;
+        }
+        codec.crc.update(b, off, len);
+        size += len;
+        codec.deflater.setInput(b, off, len);
+        while (!codec.deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            codec.deflater.finish();
+            while (!codec.deflater.finished()) {
+                drain();
+            }
+            final byte[] trailer = new byte[8];
+            writeInt(trailer, 0, (int) codec.crc.getValue());
+            writeInt(trailer, 4, (int) size);
+            out.write(trailer);
+            out.close();
+        } finally {
+            if (!pooled) {
+                codec.deflater.end();
+            }
+        }
+    }
+
+    private void drain() throws IOException {
+        final int length = codec.deflater.deflate(codec.buffer, 0, codec.buffer.length, Deflater.NO_FLUSH);
+        if (length > 0) {
+            out.write(codec.buffer, 0, length);
+        }
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private static final class Codec {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+
+        private void reset(int level) {
+            deflater.reset();
+            deflater.setLevel(level);
+            crc.reset();
+        }
+    }
+}
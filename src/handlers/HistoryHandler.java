@@ -11,11 +11,17 @@ public class HistoryHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    public HistoryHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
+        super(manager, gson, cache);
+    }
+
     @Override
     protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         if (isHistoryPath(pathParts)) {
-            String jsonResponse = gson.toJson(manager.getHistory());
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getHistoryVersion(), version)) {
+                sendTasks(exchange, manager.getHistory(), version, 200);
+            }
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -2,6 +2,7 @@ package handlers;
 
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -12,11 +13,17 @@ public class PrioritizedHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    public PrioritizedHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
+        super(manager, gson, cache);
+    }
+
     @Override
     protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         if (isPrioritizedPath(pathParts)) {
-            String jsonResponse = gson.toJson(manager.getPrioritizedTasks());
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getVersion(TaskType.TASK), manager.getVersion(TaskType.SUBTASK))) {
+                sendTasks(exchange, manager.getPrioritizedTasks(), version, 200);
+            }
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -0,0 +1,85 @@
+package handlers;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Response body that sends the headers only once it knows how to send the body.
+ * Up to {@code threshold} bytes are held back: a body that ends within them goes out plain with its
+ * Content-Length, a longer one is streamed with chunked transfer encoding, through {@link GzipStream}
+ * if the client accepts it.
+ */
+final class ResponseBody extends OutputStream {
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final boolean gzip;
+    private final int level;
+    private final byte[] pending;
+
+    private int buffered;
+    private OutputStream target;
+    private boolean closed;
+
+    ResponseBody(HttpExchange exchange, int statusCode, boolean gzip, int threshold, int level) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.gzip = gzip;
+        this.level = level;
+        this.pending = new byte[threshold];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (target == null && buffered < pending.length) {
+            pending[buffered++] = (byte) b;
+            return;
+        }
+        start().write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (target == null && len <= pending.length - buffered) {
+            System.arraycopy(b, off, pending, buffered, len);
+            buffered += len;
+            return;
+        }
+        start().write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        // held back bytes stay until the body is known to be large, the stream is flushed by close
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (target == null) {
+            exchange.sendResponseHeaders(statusCode, buffered == 0 ? -1 : buffered);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(pending, 0, buffered);
+            }
+        } else {
+            target.close();
+        }
+    }
+
+    private OutputStream start() throws IOException {
+        if (target == null) {
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(statusCode, 0);
+            target = gzip ? new GzipStream(exchange.getResponseBody(), level) : exchange.getResponseBody();
+            target.write(pending, 0, buffered);
+        }
+        return target;
+    }
+}
@@ -3,6 +3,7 @@ package handlers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import model.Subtask;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -14,16 +15,22 @@ public class SubtaskHandler extends BaseHttpHandler {
         super(manager, gson);
     }
 
+    public SubtaskHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
+        super(manager, gson, cache);
+    }
+
     @Override
     protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         if (isSubtaskPath(pathParts)) {
-            String jsonResponse = gson.toJson(manager.getAllSubtasks());
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getVersion(TaskType.SUBTASK))) {
+                sendTasks(exchange, manager.getAllSubtasks(), version, 200);
+            }
 
         } else if (isSubtaskPathWithId(pathParts)) {
             final int subtaskId = Integer.parseInt(pathParts[2]);
-            String jsonResponse = gson.toJson(manager.getSubtaskById(subtaskId));
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            sendTask(exchange, manager.getSubtaskById(subtaskId), version, 200);
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -34,15 +41,13 @@ public class SubtaskHandler extends BaseHttpHandler {
         final Subtask requestSubtask = getRequestSubtask(exchange);
         if (isSubtaskPath(pathParts)) {
             manager.createSubtask(requestSubtask);
-            String jsonResponse = gson.toJson(requestSubtask);
-            sendText(exchange, jsonResponse, 201);
+            sendTask(exchange, requestSubtask, 201);
 
         } else if (isSubtaskPathWithId(pathParts)) {
             final int subtaskId = Integer.parseInt(pathParts[2]);
             requestSubtask.setId(subtaskId);
             manager.updateSubtask(requestSubtask);
-            String jsonResponse = gson.toJson(requestSubtask);
-            sendText(exchange, jsonResponse, 201);
+            sendTask(exchange, requestSubtask, 201);
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -3,6 +3,7 @@ package handlers;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import model.Task;
+import model.TaskType;
 import service.TaskManager;
 
 import java.io.IOException;
@@ -15,16 +16,22 @@ public class TaskHandler extends BaseHttpHandler {
 
     }
 
+    public TaskHandler(TaskManager manager, Gson gson, TaskJsonCache cache) {
+        super(manager, gson, cache);
+    }
+
     @Override
     protected void handleGet(HttpExchange exchange, String[] pathParts) throws IOException {
         if (isTaskPath(pathParts)) {
-            String jsonResponse = gson.toJson(manager.getAllTasks());
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            if (!notModified(exchange, manager.getVersion(TaskType.TASK))) {
+                sendTasks(exchange, manager.getAllTasks(), version, 200);
+            }
 
         } else if (isTaskPathWithId(pathParts)) {
             final int taskId = Integer.parseInt(pathParts[2]);
-            String jsonResponse = gson.toJson(manager.getTaskById(taskId));
-            sendText(exchange, jsonResponse, 200);
+            final long version = manager.getVersion();
+            sendTask(exchange, manager.getTaskById(taskId), version, 200);
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
@@ -35,15 +42,13 @@ public class TaskHandler extends BaseHttpHandler {
         final Task requestTask = getRequestTask(exchange);
         if (isTaskPath(pathParts)) {
             manager.createTask(requestTask);
-            String jsonResponse = gson.toJson(requestTask);
-            sendText(exchange, jsonResponse, 201);
+            sendTask(exchange, requestTask, 201);
 
         } else if (isTaskPathWithId(pathParts)) {
             final int taskId = Integer.parseInt(pathParts[2]);
             requestTask.setId(taskId);
             manager.updateTask(requestTask);
-            String jsonResponse = gson.toJson(requestTask);
-            sendText(exchange, jsonResponse, 201);
+            sendTask(exchange, requestTask, 201);
         } else {
             sendText(exchange, "Invalid Request", 400);
         }
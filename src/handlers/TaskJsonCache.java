@@ -0,0 +1,120 @@
+package handlers;
+
+import com.google.gson.Gson;
+import model.Task;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * UTF-8 JSON of recently served tasks, keyed by id and shared by the handlers of one server.
+ * Every entry is labelled with the revision of its task, see {@link service.TaskManager#getRevision},
+ * and is reused only under the same revision. Every change that can touch a task revises it, so updates
+ * that replace a task and in-place changes such as epic rollups both leave the entry behind,
+ * while the entries of the other tasks stay.
+ * The least recently used entries are evicted once the cached JSON exceeds the byte budget.
+ * A list larger than the budget would only cycle through it and should bypass the cache, see {@link #fits}.
+ */
+public final class TaskJsonCache {
+
+    // Rough cost of an entry beyond its JSON: the map node, the entry and the array header
+    private static final int ENTRY_OVERHEAD = 96;
+    // Assumed size of an entry while the cache is still empty
+    private static final int ENTRY_ESTIMATE = 256;
+
+    private final Gson gson;
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    public TaskJsonCache(Gson gson, long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Invalid cache size: " + maxBytes);
+        }
+        this.gson = gson;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * The JSON of the task, encoded now or taken from the cache.
+     * A task revised after the read began may have been read before that change or after it,
+     * so its JSON is encoded without the cache.
+     *
+     * @param version  the stamp of the manager, see {@link service.TaskManager#getVersion()},
+     *                 taken before the task was read
+     * @param revision the revision of the task taken after it was read
+     */
+    public byte[] get(Task task, long version, long revision) {
+        final Integer id = task.getId();
+        final boolean cacheable = id != null && revision <= version;
+        synchronized (this) {
+            final Entry entry = cacheable ? entries.get(id) : null;
+            if (entry != null && entry.revision == revision) {
+                hits++;
+                return entry.json;
+            }
+            misses++;
+        }
+        final byte[] json = gson.toJson(task, task.getClass()).getBytes(StandardCharsets.UTF_8);
+        if (cacheable) {
+            put(id, new Entry(revision, json));
+        }
+        return json;
+    }
+
+    /**
+     * Whether that many tasks, judging by the entries cached so far, fit in the budget.
+     */
+    public synchronized boolean fits(int count) {
+        final long average = entries.isEmpty() ? ENTRY_ESTIMATE : bytes / entries.size();
+        return count * average <= maxBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    private synchronized void put(int id, Entry entry) {
+        final long size = entry.size();
+        if (size > maxBytes) {
+            return;
+        }
+        final Entry replaced = entries.put(id, entry);
+        if (replaced != null) {
+            bytes -= replaced.size();
+        }
+        bytes += size;
+        final Iterator<Map.Entry<Integer, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes) {
+            bytes -= eldest.next().getValue().size();
+            eldest.remove();
+        }
+    }
+
+    private static final class Entry {
+        private final long revision;
+        private final byte[] json;
+
+        private Entry(long revision, byte[] json) {
+            this.revision = revision;
+            this.json = json;
+        }
+
+        private long size() {
+            return json.length + ENTRY_OVERHEAD;
+        }
+    }
+}
@@ -1,16 +1,23 @@
 package model;
 
-import com.google.gson.annotations.Expose;
-
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 public class Epic extends Task {
 
-    @Expose(serialize = false)
-    private final List<Subtask> subtasks = new ArrayList<>();
+    private final Map<Integer, Registration> subtasks = new LinkedHashMap<>();
+
+    // Rollups of the subtasks, kept up to date on every add and remove
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private Duration subtasksDuration = Duration.ZERO;
 
     public Epic(String name, String description) {
         super(name, description, TaskStatus.NEW);
@@ -29,20 +36,89 @@ public class Epic extends Task {
         super(id, name, description, status, startTime, duration);
     }
 
+    /**
+     * Copy of the epic with its current rollups and subtask list, a view that later changes do not touch.
+     */
+    public Epic(Epic epic) {
+        super(epic);
+        subtasks.putAll(epic.subtasks);
+        System.arraycopy(epic.statusCounts, 0, statusCounts, 0, statusCounts.length);
+        startTimes.putAll(epic.startTimes);
+        endTimes.putAll(epic.endTimes);
+        subtasksDuration = epic.subtasksDuration;
+    }
+
     public void addSubtask(Subtask subtask) {
-        subtasks.add(subtask);
+        final Registration registration = new Registration(subtask);
+        final Registration replaced = subtasks.put(subtask.getId(), registration);
+        if (replaced != null) {
+            unregister(replaced);
+        }
+        register(registration);
     }
 
     public void removeSubtask(Subtask subtask) {
-        subtasks.remove(subtask);
+        final Registration removed = subtasks.remove(subtask.getId());
+        if (removed != null) {
+            unregister(removed);
+        }
     }
 
     public void removeAllSubtasks() {
         subtasks.clear();
+        Arrays.fill(statusCounts, 0);
+        startTimes.clear();
+        endTimes.clear();
+        subtasksDuration = Duration.ZERO;
     }
 
     public List<Subtask> getSubtasks() {
-        return subtasks;
+        final List<Subtask> result = new ArrayList<>(subtasks.size());
+        for (Registration registration : subtasks.values()) {
+            result.add(registration.subtask);
+        }
+        return result;
+    }
+
+    public boolean hasSubtasks() {
+        return !subtasks.isEmpty();
+    }
+
+    public TaskStatus getSubtasksStatus() {
+        final int total = subtasks.size();
+        if (statusCounts[TaskStatus.NEW.ordinal()] == total) {
+            return TaskStatus.NEW;
+        }
+        if (statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    public LocalDateTime getSubtasksStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    public LocalDateTime getSubtasksEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    public Duration getSubtasksDuration() {
+        return subtasksDuration;
+    }
+
+    private void register(Registration registration) {
+        statusCounts[registration.status.ordinal()]++;
+        startTimes.merge(registration.startTime, 1, Integer::sum);
+        endTimes.merge(registration.endTime, 1, Integer::sum);
+        subtasksDuration = subtasksDuration.plus(registration.duration);
+    }
+
+    private void unregister(Registration registration) {
+        statusCounts[registration.status.ordinal()]--;
+        startTimes.computeIfPresent(registration.startTime, (time, count) -> count == 1 ? null : count - 1);
+        endTimes.computeIfPresent(registration.endTime, (time, count) -> count == 1 ? null : count - 1);
+        subtasksDuration = subtasksDuration.minus(registration.duration);
     }
 
     @Override
@@ -62,4 +138,22 @@ public class Epic extends Task {
                 ", endTime=" + getEndTime() +
                 '}';
     }
+
+    // The values a subtask was counted with. A stored subtask can be edited in place before it is
+    // re-added, so it is taken out of the rollups by these values rather than by its current ones.
+    private static final class Registration {
+        private final Subtask subtask;
+        private final TaskStatus status;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final Duration duration;
+
+        private Registration(Subtask subtask) {
+            this.subtask = subtask;
+            this.status = subtask.getStatus();
+            this.startTime = subtask.getStartTime();
+            this.endTime = subtask.getEndTime();
+            this.duration = subtask.getDuration();
+        }
+    }
 }
@@ -1,13 +1,10 @@
 package model;
 
-import com.google.gson.annotations.Expose;
-
 import java.time.Duration;
 import java.time.LocalDateTime;
 
 public class Subtask extends Task {
 
-    @Expose
     private final Integer epicId;
 
     public Subtask(Integer epicId,
@@ -1,7 +1,5 @@
 package model;
 
-import com.google.gson.annotations.Expose;
-
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -9,19 +7,12 @@ import java.util.Objects;
 
 public class Task {
 
-    @Expose
     private Integer id;
-    @Expose
     private String name;
-    @Expose
     private String description;
-    @Expose
     private TaskStatus status;
-    @Expose
     private LocalDateTime startTime;
-    @Expose
     private Duration duration;
-    @Expose
     private LocalDateTime endTime;
 
     public Task(String name, String description, TaskStatus status) {
@@ -68,6 +59,16 @@ public class Task {
         this.id = id;
     }
 
+    protected Task(Task task) {
+        this.id = task.id;
+        this.name = task.name;
+        this.description = task.description;
+        this.status = task.status;
+        this.startTime = task.startTime;
+        this.duration = task.duration;
+        this.endTime = task.endTime;
+    }
+
     public Integer getId() {
         return id;
     }
@@ -0,0 +1,5 @@
+package server;
+
+public enum ExecutorMode {
+    DISPATCHER, FIXED_POOL, VIRTUAL_THREADS
+}
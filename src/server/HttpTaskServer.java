@@ -9,25 +9,53 @@ import util.GsonFactory;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * HTTP API of a {@link TaskManager} on the JDK server, listening on localhost:8080.
+ * Requests run as the {@link ExecutorMode} given to the constructor says, by default on the dispatcher thread,
+ * and incoming connections queue up to the given backlog. The handlers share one {@link TaskJsonCache}.
+ */
 public class HttpTaskServer {
 
     private static final int PORT = 8080;
 
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private static final long JSON_CACHE_BYTES = 32L * 1024 * 1024;
+
     private final TaskManager manager;
 
     private final HttpServer httpServer;
 
+    private final ExecutorService executor;
+
     private final Gson gson;
 
+    private final TaskJsonCache jsonCache;
+
     public HttpTaskServer(TaskManager manager) {
+        this(manager, ExecutorMode.DISPATCHER, DEFAULT_POOL_SIZE, 0);
+    }
+
+    /**
+     * @param executorMode where requests are handled: on the single dispatcher thread,
+     *                     on a fixed pool of {@code poolSize} platform threads or on a new virtual thread each.
+     *                     Any mode other than {@link ExecutorMode#DISPATCHER} needs a thread-safe manager.
+     * @param backlog      maximum number of queued incoming connections, 0 for the system default
+     */
+    public HttpTaskServer(TaskManager manager, ExecutorMode executorMode, int poolSize, int backlog) {
         this.manager = manager;
         try {
-            this.httpServer = HttpServer.create(new InetSocketAddress("localhost", PORT), 0);
+            this.httpServer = HttpServer.create(new InetSocketAddress("localhost", PORT), backlog);
         } catch (IOException exception) {
             throw new ServerCreatingException("Failed to create HTTP server on port " + PORT);
         }
+        this.executor = createExecutor(executorMode, poolSize);
+        this.httpServer.setExecutor(executor);
         this.gson = GsonFactory.createGson();
+        this.jsonCache = new TaskJsonCache(gson, JSON_CACHE_BYTES);
     }
 
     public void start() {
@@ -38,14 +66,31 @@ public class HttpTaskServer {
 
     public void stop() {
         httpServer.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
         System.out.println("Server stopped");
     }
 
+    // The executor requests run on, null in DISPATCHER mode
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
     private void createContexts() {
-        httpServer.createContext("/tasks", new TaskHandler(manager, gson));
-        httpServer.createContext("/epics", new EpicHandler(manager, gson));
-        httpServer.createContext("/subtasks", new SubtaskHandler(manager, gson));
-        httpServer.createContext("/history", new HistoryHandler(manager, gson));
-        httpServer.createContext("/prioritized", new PrioritizedHandler(manager, gson));
+        httpServer.createContext("/tasks", new TaskHandler(manager, gson, jsonCache));
+        httpServer.createContext("/epics", new EpicHandler(manager, gson, jsonCache));
+        httpServer.createContext("/subtasks", new SubtaskHandler(manager, gson, jsonCache));
+        httpServer.createContext("/history", new HistoryHandler(manager, gson, jsonCache));
+        httpServer.createContext("/prioritized", new PrioritizedHandler(manager, gson, jsonCache));
+        httpServer.createContext("/batch", new BatchHandler(manager, gson));
+    }
+
+    private static ExecutorService createExecutor(ExecutorMode executorMode, int poolSize) {
+        return switch (executorMode) {
+            case DISPATCHER -> null;
+            case FIXED_POOL -> Executors.newFixedThreadPool(poolSize);
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+        };
     }
 }
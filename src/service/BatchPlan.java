@@ -0,0 +1,282 @@
+package service;
+
+import exceptions.NotFoundException;
+import exceptions.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+import util.IntObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.IntSupplier;
+
+/**
+ * Checks a {@link TaskBatch} against the current tasks before a manager changes anything:
+ * every referenced task and epic exists, no id is used twice, and no two timed tasks intersect.
+ * The time check is one sort and sweep over the incoming tasks plus one index query for each of them,
+ * instead of a full check per operation. A validated plan then applies the operations to the manager's maps.
+ */
+final class BatchPlan {
+
+    private final List<TaskBatch.Operation> operations;
+    private final Task[] stored;
+    private final List<Task> leaving = new ArrayList<>();
+    private final List<Task> entering = new ArrayList<>();
+    private final Set<Epic> touched = new LinkedHashSet<>();
+
+    BatchPlan(TaskBatch batch, IntFunction<Task> tasks, IntFunction<Epic> epics, IntFunction<Subtask> subtasks) {
+        this.operations = batch.getOperations();
+        this.stored = new Task[operations.size()];
+
+        final Set<Integer> ids = new HashSet<>();
+        final Set<Integer> removedEpics = new HashSet<>();
+        final List<Integer> referencedEpics = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            final TaskBatch.Operation operation = operations.get(i);
+            switch (operation.getKind()) {
+                case CREATE -> {
+                    final Task task = operation.getTask();
+                    if (task instanceof Subtask subtask) {
+                        requireEpic(epics, subtask.getEpicId());
+                        referencedEpics.add(subtask.getEpicId());
+                    }
+                    if (task.getType() != TaskType.EPIC) {
+                        entering.add(task);
+                    }
+                }
+                case UPDATE -> {
+                    final Task task = operation.getTask();
+                    final int id = requireUnique(ids, operation.getId());
+                    final Task saved = switch (task.getType()) {
+                        case TASK -> tasks.apply(id);
+                        case EPIC -> epics.apply(id);
+                        case SUBTASK -> subtasks.apply(id);
+                    };
+                    if (saved == null) {
+                        throw new NotFoundException(name(task.getType()) + " with id " + id + " not found");
+                    }
+                    if (task instanceof Subtask subtask) {
+                        requireEpic(epics, subtask.getEpicId());
+                        referencedEpics.add(subtask.getEpicId());
+                        referencedEpics.add(saved.getEpicId());
+                    }
+                    if (task.getType() != TaskType.EPIC) {
+                        leaving.add(saved);
+                        entering.add(task);
+                    }
+                    stored[i] = saved;
+                }
+                case DELETE -> {
+                    final int id = requireUnique(ids, operation.getId());
+                    Task saved = tasks.apply(id);
+                    if (saved == null) {
+                        saved = epics.apply(id);
+                    }
+                    if (saved == null) {
+                        saved = subtasks.apply(id);
+                    }
+                    if (saved == null) {
+                        throw new NotFoundException("Task with id " + id + " not found");
+                    }
+                    if (saved instanceof Epic epic) {
+                        removedEpics.add(id);
+                        leaving.addAll(epic.getSubtasks());
+                    } else {
+                        leaving.add(saved);
+                    }
+                    if (saved instanceof Subtask subtask) {
+                        referencedEpics.add(subtask.getEpicId());
+                    }
+                    stored[i] = saved;
+                }
+            }
+        }
+        for (Integer epicId : referencedEpics) {
+            if (removedEpics.contains(epicId)) {
+                throw new ValidationException("Epic with id " + epicId + " is removed in the same batch");
+            }
+        }
+    }
+
+    /**
+     * The stored version of the task an update or delete refers to, null for a create.
+     */
+    Task stored(int index) {
+        return stored[index];
+    }
+
+    /**
+     * Takes the replaced and removed tasks out of the index and checks the incoming ones.
+     * If the check fails the index is left as it was.
+     */
+    void validate(TaskIntervalTree index) {
+        final List<Task> sorted = new ArrayList<>(entering);
+        sorted.sort(Comparator.comparing(Task::getStartTime));
+        final List<Task[]> overlaps = TaskIntervalTree.findAllOverlaps(sorted);
+        if (!overlaps.isEmpty()) {
+            final Task[] pair = overlaps.get(0);
+            throw new ValidationException("Batch tasks " + describe(pair[0]) + " and " + describe(pair[1])
+                    + " intersect in time");
+        }
+        index.removeAll(leaving);
+        for (Task task : sorted) {
+            final Task existingTask = index.findOverlap(task);
+            if (existingTask != null) {
+                leaving.forEach(index::add);
+                throw new ValidationException("Task " + describe(task) + " intersects with task "
+                        + existingTask.getId());
+            }
+        }
+    }
+
+    /**
+     * Applies the validated operations to the maps: new tasks get ids from {@code ids}, and removed tasks,
+     * with the subtasks of removed epics, are passed to {@code discard}.
+     * Returns one task per operation as {@link TaskManager#applyBatch} describes.
+     * The index and the epic rollups are left to the caller, see {@link #index} and {@link #touchedEpics}.
+     */
+    List<Task> apply(IntObjectHashMap<Task> tasks, IntObjectHashMap<Epic> epics, IntObjectHashMap<Subtask> subtasks,
+                     IntSupplier ids, IntConsumer discard) {
+        final List<Task> results = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            final TaskBatch.Operation operation = operations.get(i);
+            final Task task = operation.getTask();
+            switch (operation.getKind()) {
+                case CREATE -> {
+                    task.setId(ids.getAsInt());
+                    switch (task.getType()) {
+                        case TASK -> tasks.put(task.getId(), task);
+                        case EPIC -> epics.put(task.getId(), (Epic) task);
+                        case SUBTASK -> {
+                            final Subtask subtask = (Subtask) task;
+                            final Epic epic = epics.get(subtask.getEpicId());
+                            epic.addSubtask(subtask);
+                            touched.add(epic);
+                            subtasks.put(subtask.getId(), subtask);
+                        }
+                    }
+                    results.add(task);
+                }
+                case UPDATE -> {
+                    final Task saved = stored[i];
+                    switch (task.getType()) {
+                        case TASK -> {
+                            tasks.put(task.getId(), task);
+                            results.add(task);
+                        }
+                        case EPIC -> {
+                            saved.setName(task.getName());
+                            saved.setDescription(task.getDescription());
+                            results.add(saved);
+                        }
+                        case SUBTASK -> {
+                            final Subtask subtask = (Subtask) task;
+                            final Epic savedEpic = epics.get(saved.getEpicId());
+                            savedEpic.removeSubtask((Subtask) saved);
+                            touched.add(savedEpic);
+                            final Epic epic = epics.get(subtask.getEpicId());
+                            epic.addSubtask(subtask);
+                            touched.add(epic);
+                            subtasks.put(subtask.getId(), subtask);
+                            results.add(subtask);
+                        }
+                    }
+                }
+                case DELETE -> {
+                    final Task saved = stored[i];
+                    final int id = saved.getId();
+                    switch (saved.getType()) {
+                        case TASK -> tasks.remove(id);
+                        case EPIC -> {
+                            epics.remove(id);
+                            touched.remove(saved);
+                            for (Subtask subtask : ((Epic) saved).getSubtasks()) {
+                                subtasks.remove(subtask.getId());
+                                discard.accept(subtask.getId());
+                            }
+                        }
+                        case SUBTASK -> {
+                            subtasks.remove(id);
+                            final Epic epic = epics.get(saved.getEpicId());
+                            epic.removeSubtask((Subtask) saved);
+                            touched.add(epic);
+                        }
+                    }
+                    discard.accept(id);
+                    results.add(saved);
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * The remaining epics whose subtasks the applied batch changed, each once.
+     */
+    Set<Epic> touchedEpics() {
+        return touched;
+    }
+
+    /**
+     * Adds the incoming tasks, which have ids by now, to the index. A batch larger than the index
+     * is merged with it and the index is rebuilt in O(n + k) instead of k single inserts.
+     */
+    void index(TaskIntervalTree index) {
+        if (entering.size() <= index.size()) {
+            entering.forEach(index::add);
+            return;
+        }
+        final List<Task> current = index.toList();
+        final List<Task> incoming = new ArrayList<>(entering);
+        incoming.sort(TaskIntervalTree.ORDER);
+        final List<Task> merged = new ArrayList<>(current.size() + incoming.size());
+        int i = 0;
+        int j = 0;
+        while (i < current.size() && j < incoming.size()) {
+            if (TaskIntervalTree.ORDER.compare(current.get(i), incoming.get(j)) <= 0) {
+                merged.add(current.get(i++));
+            } else {
+                merged.add(incoming.get(j++));
+            }
+        }
+        merged.addAll(current.subList(i, current.size()));
+        merged.addAll(incoming.subList(j, incoming.size()));
+        index.rebuild(merged);
+    }
+
+    private static void requireEpic(IntFunction<Epic> epics, Integer epicId) {
+        if (epicId == null || epics.apply(epicId) == null) {
+            throw new NotFoundException("Epic with id " + epicId + " not found");
+        }
+    }
+
+    private static int requireUnique(Set<Integer> ids, Integer id) {
+        if (id == null) {
+            throw new ValidationException("Batch operation has no task id");
+        }
+        if (!ids.add(id)) {
+            throw new ValidationException("Task with id " + id + " appears twice in the batch");
+        }
+        return id;
+    }
+
+    private static String name(TaskType type) {
+        return switch (type) {
+            case TASK -> "Task";
+            case EPIC -> "Epic";
+            case SUBTASK -> "Subtask";
+        };
+    }
+
+    private static String describe(Task task) {
+        return task.getId() != null ? String.valueOf(task.getId()) : "'" + task.getName() + "'";
+    }
+}
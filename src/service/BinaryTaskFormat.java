@@ -0,0 +1,181 @@
+package service;
+
+import model.*;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot format, version 1. All numbers are big-endian.
+ * <pre>
+ * magic "KBTS", version u8, record count i32, then per record:
+ *   type u8 (ordinal), id i32, epicId i32 (-1 if none), status u8 (ordinal),
+ *   start epoch second i64 (UTC, {@link Long#MIN_VALUE} if none), start nano i32,
+ *   duration seconds i32, name and description as i32 byte length (-1 if null) + UTF-8 bytes
+ * </pre>
+ * Loading needs no text parsing: the only objects created per record are the task itself,
+ * its two strings and its time values.
+ */
+final class BinaryTaskFormat {
+
+    private static final byte[] MAGIC = {'K', 'B', 'T', 'S'};
+    static final int MAGIC_LENGTH = MAGIC.length;
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FIXED_RECORD_SIZE = 1 + 4 + 4 + 1 + 8 + 4 + 4;
+
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private BinaryTaskFormat() {
+    }
+
+    static boolean matches(byte[] header) {
+        return Arrays.equals(header, MAGIC);
+    }
+
+    static void read(Path file, Consumer<Task> consumer) throws IOException {
+        read(Files.newInputStream(file), consumer);
+    }
+
+    static void read(InputStream stream, Consumer<Task> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE))) {
+            final byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a binary task snapshot");
+            }
+            final int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported binary snapshot version " + version);
+            }
+            final int count = in.readInt();
+            final RecordReader reader = new RecordReader();
+            for (int i = 0; i < count; i++) {
+                consumer.accept(reader.read(in));
+            }
+        }
+    }
+
+    static void write(OutputStream out, List<Task> rows) throws IOException {
+        final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out, BUFFER_SIZE));
+        data.write(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(rows.size());
+        for (Task row : rows) {
+            writeRecord(data, row);
+        }
+        data.flush();
+    }
+
+    static void writeRecord(DataOutput out, Task row) throws IOException {
+        out.writeByte(row.getType().ordinal());
+        out.writeInt(row.getId());
+        out.writeInt(row.getEpicId() == null ? -1 : row.getEpicId());
+        out.writeByte(row.getStatus().ordinal());
+        final LocalDateTime startTime = row.getStartTime();
+        out.writeLong(startTime == null ? Long.MIN_VALUE : startTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(startTime == null ? 0 : startTime.getNano());
+        out.writeInt(Math.toIntExact(row.getDuration().getSeconds()));
+        writeString(out, row.getName());
+        writeString(out, row.getDescription());
+    }
+
+    /**
+     * Size of the record {@link #writeRecord} produces for the task.
+     */
+    static int recordSize(Task row) {
+        return FIXED_RECORD_SIZE + 2 * Integer.BYTES + utf8Length(row.getName()) + utf8Length(row.getDescription());
+    }
+
+    /**
+     * Decodes records one after another, reusing one byte buffer for the strings.
+     */
+    static final class RecordReader {
+
+        private byte[] buffer = new byte[256];
+
+        Task read(DataInput in) throws IOException {
+            final TaskType type = TYPES[in.readUnsignedByte()];
+            final int id = in.readInt();
+            final int epicId = in.readInt();
+            final TaskStatus status = STATUSES[in.readUnsignedByte()];
+            final long startSecond = in.readLong();
+            final int startNano = in.readInt();
+            final Duration duration = Duration.ofSeconds(in.readInt());
+            final LocalDateTime startTime = startSecond == Long.MIN_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(startSecond, startNano, ZoneOffset.UTC);
+            final String name = readString(in);
+            final String description = readString(in);
+
+            return switch (type) {
+                case TASK -> new Task(id, name, description, status, startTime, duration);
+                case EPIC -> CsvTaskFormat.epic(id, name, description, status, startTime, duration);
+                case SUBTASK -> new Subtask(id, epicId, name, description, status, startTime, duration);
+            };
+        }
+
+        private String readString(DataInput in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            in.readFully(buffer, 0, length);
+            return new String(buffer, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                // an unpaired surrogate is encoded as '?'
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
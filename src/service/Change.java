@@ -0,0 +1,78 @@
+package service;
+
+import model.Task;
+import model.TaskType;
+
+/**
+ * One mutation of the manager as a {@link StorageEngine} sees it.
+ * A put carries the new version of a task, a delete carries the task that was removed,
+ * a clear carries the type of the tasks that were removed together.
+ */
+public final class Change {
+
+    public enum Kind {
+        PUT, DELETE, CLEAR
+    }
+
+    private final Kind kind;
+    private final int id;
+    private final Task task;
+    private final TaskType type;
+
+    private Change(Kind kind, int id, Task task, TaskType type) {
+        this.kind = kind;
+        this.id = id;
+        this.task = task;
+        this.type = type;
+    }
+
+    public static Change put(Task task) {
+        return new Change(Kind.PUT, task.getId(), task, task.getType());
+    }
+
+    /**
+     * A removed epic still lists the subtasks that were removed with it.
+     */
+    public static Change delete(Task task) {
+        return new Change(Kind.DELETE, task.getId(), task, task.getType());
+    }
+
+    /**
+     * A delete replayed from a log that only kept the id.
+     */
+    public static Change delete(int id) {
+        return new Change(Kind.DELETE, id, null, null);
+    }
+
+    public static Change clear(TaskType type) {
+        return new Change(Kind.CLEAR, -1, null, type);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * The task that was put or removed, or null for a clear and for a replayed delete.
+     */
+    public Task getTask() {
+        return task;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return "Change{" +
+                "kind=" + kind +
+                ", id=" + id +
+                ", type=" + type +
+                '}';
+    }
+}
@@ -0,0 +1,222 @@
+package service;
+
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe {@link TaskManager} around an {@link InMemoryTaskManager}.
+ * Changes run one at a time under the write lock of a {@link StampedLock}, lookups and lists share its read lock.
+ * Lookups record views in the history, so the history manager is synchronized on its own.
+ * Epics are the only entities the manager changes in place, when their subtasks roll up into them,
+ * so readers get a copy of every epic taken under the lock instead of the live instance.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private final InMemoryTaskManager delegate;
+
+    private final StampedLock lock = new StampedLock();
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this.delegate = new InMemoryTaskManager(new SynchronizedHistoryManager(historyManager));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(() -> snapshots(delegate.getHistory()));
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(delegate::getAllTasks);
+    }
+
+    @Override
+    public void removeAllTasksFromManager() {
+        write(delegate::removeAllTasksFromManager);
+    }
+
+    @Override
+    public Task getTaskById(Integer id) {
+        return read(() -> delegate.getTaskById(id));
+    }
+
+    @Override
+    public Task createTask(Task task) {
+        return write(() -> delegate.createTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void removeTaskById(Integer id) {
+        write(() -> delegate.removeTaskById(id));
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(() -> snapshots(delegate.getAllEpics()));
+    }
+
+    @Override
+    public void removeAllEpicsFromManager() {
+        write(delegate::removeAllEpicsFromManager);
+    }
+
+    @Override
+    public Epic getEpicById(Integer id) {
+        return read(() -> new Epic(delegate.getEpicById(id)));
+    }
+
+    @Override
+    public Epic createEpic(Epic epic) {
+        return write(() -> delegate.createEpic(epic));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void removeEpicById(Integer id) {
+        write(() -> delegate.removeEpicById(id));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(delegate::getAllSubtasks);
+    }
+
+    @Override
+    public void removeAllSubtasksFromManager() {
+        write(delegate::removeAllSubtasksFromManager);
+    }
+
+    @Override
+    public Subtask getSubtaskById(Integer id) {
+        return read(() -> delegate.getSubtaskById(id));
+    }
+
+    @Override
+    public Subtask createSubtask(Subtask subtask) {
+        return write(() -> delegate.createSubtask(subtask));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public void removeSubtaskById(Integer id) {
+        write(() -> delegate.removeSubtaskById(id));
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasksEpic(Integer id) {
+        return read(() -> delegate.getAllSubtasksEpic(id));
+    }
+
+    /**
+     * All or nothing under the write lock, readers see the board before or after the whole batch.
+     */
+    @Override
+    public List<Task> applyBatch(TaskBatch batch) {
+        return write(() -> delegate.applyBatch(batch));
+    }
+
+    @Override
+    public long getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public long getVersion(TaskType type) {
+        return delegate.getVersion(type);
+    }
+
+    @Override
+    public long getRevision(int id) {
+        return delegate.getRevision(id);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return delegate.getHistoryVersion();
+    }
+
+    private <T> T read(Supplier<T> reader) {
+        final long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private <T> T write(Supplier<T> writer) {
+        final long stamp = lock.writeLock();
+        try {
+            return writer.get();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void write(Runnable writer) {
+        write(() -> {
+            writer.run();
+            return null;
+        });
+    }
+
+    // Copies the epics of a list read under the lock, other tasks are replaced rather than changed on update
+    private static <T extends Task> List<T> snapshots(List<T> tasks) {
+        final List<T> result = new ArrayList<>(tasks.size());
+        for (T task : tasks) {
+            @SuppressWarnings("unchecked")
+            final T copy = task instanceof Epic epic ? (T) new Epic(epic) : task;
+            result.add(copy);
+        }
+        return result;
+    }
+
+    private static final class SynchronizedHistoryManager implements HistoryManager {
+
+        private final HistoryManager history;
+
+        private SynchronizedHistoryManager(HistoryManager history) {
+            this.history = history;
+        }
+
+        @Override
+        public synchronized void remove(int id) {
+            history.remove(id);
+        }
+
+        @Override
+        public synchronized void add(Task task) {
+            history.add(task);
+        }
+
+        @Override
+        public synchronized List<Task> getHistory() {
+            return history.getHistory();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import model.*;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Text snapshot format: a header line followed by one comma-separated row per task.
+ * Snapshots end every row with a {@code crc} column, the CRC32C of the row text before it in hex.
+ * Files written before the column existed have no {@code crc} in the header and are read unchecked.
+ * Journal records reuse the same row layout without the checksum.
+ */
+final class CsvTaskFormat {
+
+    static final String HEADER = "id,type,name,status,description,epic,duration,startTime";
+    static final String CHECKSUM_COLUMN = ",crc";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CsvTaskFormat() {
+    }
+
+    static void read(Path file, Consumer<Task> consumer) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            read(in, consumer);
+        }
+    }
+
+    static void read(InputStream in, Consumer<Task> consumer) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            final String header = reader.readLine();
+            final boolean checked = header != null && header.endsWith(CHECKSUM_COLUMN);
+            final CRC32C crc = new CRC32C();
+            String line;
+            int number = 1;
+            while ((line = reader.readLine()) != null) {
+                number++;
+                if (checked) {
+                    final int separator = line.lastIndexOf(',');
+                    crc.reset();
+                    crc.update(line.substring(0, Math.max(separator, 0)).getBytes(StandardCharsets.UTF_8));
+                    if (separator < 0 || !matches(crc, line, separator + 1, line.length())) {
+                        throw new ManagerLoadException("Checksum mismatch at line " + number);
+                    }
+                }
+                consumer.accept(fromString(line));
+            }
+        }
+    }
+
+    static void write(OutputStream out, List<Task> rows) throws IOException {
+        final BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        final CRC32C crc = new CRC32C();
+        buffered.write((HEADER + CHECKSUM_COLUMN + "\n").getBytes(StandardCharsets.UTF_8));
+        for (Task row : rows) {
+            final byte[] bytes = toString(row).getBytes(StandardCharsets.UTF_8);
+            crc.reset();
+            crc.update(bytes);
+            buffered.write(bytes);
+            buffered.write(',');
+            buffered.write(Long.toHexString(crc.getValue()).getBytes(StandardCharsets.US_ASCII));
+            buffered.write('\n');
+        }
+        buffered.flush();
+    }
+
+    static boolean matches(CRC32C crc, CharSequence text, int from, int to) {
+        if (to - from < 1 || to - from > 8) {
+            return false;
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            final int digit = Character.digit(text.charAt(i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            value = value << 4 | digit;
+        }
+        return value == crc.getValue();
+    }
+
+    static Task fromString(String value) {
+        final String[] parts = value.split(",");
+        final Integer id = Integer.parseInt(parts[0]);
+        final TaskType type = TaskType.valueOf(parts[1]);
+        final String name = parts[2];
+        final TaskStatus status = TaskStatus.valueOf(parts[3]);
+        final String description = parts[4];
+        final Duration duration = Duration.parse(parts[6]);
+        final LocalDateTime startTime = parts[7].equals("null") ? null : LocalDateTime.parse(parts[7]);
+
+        return switch (type) {
+            case TASK -> new Task(id, name, description, status, startTime, duration);
+            case EPIC -> epic(id, name, description, status, startTime, duration);
+            case SUBTASK -> {
+                final int epicId = Integer.parseInt(parts[5]);
+                yield new Subtask(id, epicId, name, description, status, startTime, duration);
+            }
+        };
+    }
+
+    static String toString(Task task) {
+        return task.getId() + "," +
+                task.getType() + "," +
+                task.getName() + "," +
+                task.getStatus() + "," +
+                task.getDescription() + "," +
+                task.getEpicId() + "," +
+                task.getDuration() + "," +
+                task.getStartTime();
+    }
+
+    // An epic without subtasks has no start time
+    static Epic epic(int id,
+                     String name,
+                     String description,
+                     TaskStatus status,
+                     LocalDateTime startTime,
+                     Duration duration) {
+        final Epic epic = new Epic(id, name, description);
+        epic.setStatus(status);
+        epic.setStartTime(startTime);
+        epic.setDuration(duration);
+        epic.setEndTime(startTime == null ? null : startTime.plus(duration));
+        return epic;
+    }
+}
@@ -0,0 +1,53 @@
+package service;
+
+/**
+ * When a mutation of {@link FileBackedTaskManager} becomes durable.
+ * <ul>
+ *     <li>{@code sync} - the calling thread writes and fsyncs before the mutation returns;
+ *     concurrent callers that arrive during a flush are covered by the next one together;</li>
+ *     <li>{@code groupCommit} - a background thread flushes every {@code intervalMillis}
+ *     or as soon as {@code maxOperations} are pending, the mutation returns after its flush;</li>
+ *     <li>{@code writeBehind} - the mutation returns at once and is flushed in the background,
+ *     a crash may lose the last {@code intervalMillis} of changes.</li>
+ * </ul>
+ */
+public final class DurabilityPolicy {
+
+    public enum Mode {
+        SYNC, GROUP_COMMIT, WRITE_BEHIND
+    }
+
+    private final Mode mode;
+    private final long intervalMillis;
+    private final int maxOperations;
+
+    private DurabilityPolicy(Mode mode, long intervalMillis, int maxOperations) {
+        this.mode = mode;
+        this.intervalMillis = intervalMillis;
+        this.maxOperations = maxOperations;
+    }
+
+    public static DurabilityPolicy sync() {
+        return new DurabilityPolicy(Mode.SYNC, 0, 1);
+    }
+
+    public static DurabilityPolicy groupCommit(long intervalMillis, int maxOperations) {
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, intervalMillis, maxOperations);
+    }
+
+    public static DurabilityPolicy writeBehind(long intervalMillis) {
+        return new DurabilityPolicy(Mode.WRITE_BEHIND, intervalMillis, Integer.MAX_VALUE);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getMaxOperations() {
+        return maxOperations;
+    }
+}
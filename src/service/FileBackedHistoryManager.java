@@ -0,0 +1,168 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * History that survives restarts. Every change appends one fixed-size record to a log next to the
+ * snapshot, so viewing a task never rewrites the snapshot itself:
+ * <pre>
+ * op u8 (1 = add, 2 = remove), task id i32
+ * </pre>
+ * Once the log holds far more records than the history has entries it is compacted to one add
+ * record per entry, which bounds loading by the size of the history rather than by how often tasks were viewed.
+ * Records are written without fsync: a crash may lose the latest views, never the tasks.
+ */
+public class FileBackedHistoryManager extends InMemoryHistoryManager implements AutoCloseable {
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final int RECORD_SIZE = 1 + Integer.BYTES;
+    private static final long MIN_COMPACTION_RECORDS = 1024;
+
+    private final Path path;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+
+    private FileChannel channel;
+    private long records;
+
+    public FileBackedHistoryManager(Path file) {
+        this.path = file.resolveSibling(file.getFileName() + ".history");
+        open();
+    }
+
+    @Override
+    public synchronized void add(Task task) {
+        super.add(task);
+        append(ADD, task.getId());
+    }
+
+    @Override
+    public synchronized void remove(int id) {
+        if (contains(id)) {
+            super.remove(id);
+            append(REMOVE, id);
+        }
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return super.getHistory();
+    }
+
+    /**
+     * Replays the log, resolving ids through the loaded tasks. Ids of tasks that no longer exist are skipped.
+     * A torn record at the end of the log is cut off.
+     */
+    synchronized void load(IntFunction<? extends Task> lookup) {
+        try {
+            final long size = channel.size();
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size - size % RECORD_SIZE));
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // read until the buffer is full
+            }
+            buffer.flip();
+            while (buffer.remaining() >= RECORD_SIZE) {
+                final byte op = buffer.get();
+                final int id = buffer.getInt();
+                if (op == REMOVE) {
+                    super.remove(id);
+                } else {
+                    final Task task = lookup.apply(id);
+                    if (task != null) {
+                        super.add(task);
+                    }
+                }
+            }
+            records = buffer.limit() / RECORD_SIZE;
+            if (size != buffer.limit()) {
+                channel.truncate(buffer.limit());
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error reading history!");
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.force(false);
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing history!");
+        }
+    }
+
+    // A closed manager still answers reads, the views it records are simply not kept
+    private void append(byte op, int id) {
+        if (!channel.isOpen()) {
+            return;
+        }
+        record.clear();
+        record.put(op).putInt(id).flip();
+        try {
+            final long position = records * RECORD_SIZE;
+            while (record.hasRemaining()) {
+                channel.write(record, position + record.position());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error writing history!");
+        }
+        records++;
+        compactIfNeeded();
+    }
+
+    private void compactIfNeeded() {
+        if (records > MIN_COMPACTION_RECORDS && records > 4L * size()) {
+            compact();
+        }
+    }
+
+    // Rewrites the log as the current history through a temporary file, so a crash keeps one of the two
+    private void compact() {
+        final List<Task> history = super.getHistory();
+        final ByteBuffer buffer = ByteBuffer.allocate(history.size() * RECORD_SIZE);
+        for (Task task : history) {
+            buffer.put(ADD).putInt(task.getId());
+        }
+        buffer.flip();
+        final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            channel.close();
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                out.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error compacting history!");
+        } finally {
+            open();
+        }
+    }
+
+    private void open() {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            records = channel.size() / RECORD_SIZE;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening history!");
+        }
+    }
+}
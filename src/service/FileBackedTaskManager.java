@@ -1,186 +1,542 @@
 package service;
 
 import exceptions.ManagerLoadException;
-import exceptions.ManagerSaveException;
 import model.*;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
-import java.time.Duration;
-import java.time.LocalDateTime;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
 
-    private final Path file;
+    private final StorageEngine engine;
+
+    private final GroupCommitter committer;
+
+    private final StorageEngine.State state = new StorageEngine.State() {
+        @Override
+        public List<Task> rows() {
+            return captureRows();
+        }
+
+        @Override
+        public Task lookup(int id) {
+            return FileBackedTaskManager.this.lookup(id);
+        }
+    };
+
+    private FileBackedHistoryManager history;
 
     public FileBackedTaskManager(HistoryManager historyManager, Path file) {
+        this(historyManager, file, PersistenceMode.SNAPSHOT);
+    }
+
+    public FileBackedTaskManager(HistoryManager historyManager, Path file, PersistenceMode mode) {
+        this(historyManager, file, mode, DurabilityPolicy.sync());
+    }
+
+    /**
+     * In {@link PersistenceMode#JOURNAL} mode the file is only a base snapshot: every mutation
+     * appends one record to a journal next to it instead of rewriting the whole file, see {@link JournalStorage}.
+     * <p>
+     * In {@link PersistenceMode#PAGED} mode the file is a {@link PageStore}: a flush rewrites only the pages
+     * holding tasks changed since the previous one. An existing snapshot is converted on load.
+     * <p>
+     * Snapshots keep the {@link SnapshotFormat} of the existing file, a new file is written as CSV.
+     * A compressed snapshot stays compressed, see {@link #setCompressionLevel}.
+     * <p>
+     * Managers created by {@code loadFromFile} also keep the history, see {@link FileBackedHistoryManager}.
+     */
+    public FileBackedTaskManager(HistoryManager historyManager,
+                                 Path file,
+                                 PersistenceMode mode,
+                                 DurabilityPolicy policy) {
+        this(historyManager, open(file, mode, LoadMode.BUFFERED), policy);
+    }
+
+    /**
+     * Mutations are serialized on the manager and handed to the engine one by one,
+     * the wait for durability happens outside the lock, so concurrent writers share one commit
+     * under {@link DurabilityPolicy#groupCommit}.
+     */
+    public FileBackedTaskManager(HistoryManager historyManager, StorageEngine engine, DurabilityPolicy policy) {
         super(historyManager);
-        this.file = file;
+        this.engine = engine;
+        this.committer = new GroupCommitter(policy, this::commit, "task-commit-" + engine.getClass().getSimpleName());
     }
 
     public static FileBackedTaskManager loadFromFile(Path file) {
-        final FileBackedTaskManager manager = new FileBackedTaskManager(Managers.getDefaultHistory(), file);
-        int maxId = 0;
-
-        try (BufferedReader reader = Files.newBufferedReader(file)) {
-            reader.readLine();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                final Task task = manager.fromString(line);
-                final Integer id = task.getId();
-                final TaskType type = task.getType();
-
-                switch (type) {
-                    case TASK -> {
-                        manager.checkTaskTime(task);
-                        manager.tasks.put(id, task);
-                        manager.prioritizedTasks.add(task);
-                    }
-                    case EPIC -> manager.epics.put(id, (Epic) task);
-                    case SUBTASK -> {
-                        manager.checkTaskTime(task);
-                        manager.subtasks.put(id, (Subtask) task);
-                        manager.prioritizedTasks.add(task);
-                        final Epic epic = manager.epics.get(task.getEpicId());
-                        epic.addSubtask((Subtask) task);
-                        manager.calculateEpicTime(epic);
-                    }
+        return loadFromFile(file, PersistenceMode.SNAPSHOT);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file, PersistenceMode mode) {
+        return loadFromFile(file, mode, DurabilityPolicy.sync());
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file, LoadMode loadMode) {
+        return loadFromFile(file, PersistenceMode.SNAPSHOT, DurabilityPolicy.sync(), loadMode);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file, PersistenceMode mode, DurabilityPolicy policy) {
+        return loadFromFile(file, mode, policy, LoadMode.BUFFERED);
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file,
+                                                     PersistenceMode mode,
+                                                     DurabilityPolicy policy,
+                                                     LoadMode loadMode) {
+        final FileBackedHistoryManager history = new FileBackedHistoryManager(file);
+        final FileBackedTaskManager manager = load(history, open(file, mode, loadMode), policy);
+        manager.history = history;
+        history.load(manager::lookup);
+        return manager;
+    }
+
+    /**
+     * Creates a manager over the engine and restores everything the engine has stored.
+     */
+    public static FileBackedTaskManager load(HistoryManager historyManager,
+                                             StorageEngine engine,
+                                             DurabilityPolicy policy) {
+        final FileBackedTaskManager manager = new FileBackedTaskManager(historyManager, engine, policy);
+        final List<Task> rows = new ArrayList<>();
+        engine.load(rows::add);
+        manager.restoreAll(rows);
+        engine.replay(manager::replay);
+        return manager;
+    }
+
+    private static StorageEngine open(Path file, PersistenceMode mode, LoadMode loadMode) {
+        return switch (mode) {
+            case SNAPSHOT -> new SnapshotStorage(file, loadMode);
+            case JOURNAL -> new JournalStorage(file, loadMode);
+            case PAGED -> new PagedStorage(file);
+        };
+    }
+
+    /**
+     * Cuts a damaged CSV snapshot back to its longest valid prefix and reports what was dropped.
+     * The file is only changed when something has to be dropped, it can be loaded afterwards.
+     */
+    public static RecoveryReport recover(Path file) {
+        if (SnapshotFormat.detect(file) != SnapshotFormat.CSV || SnapshotFormat.isCompressed(file)) {
+            throw new ManagerLoadException("Only uncompressed CSV snapshots can be recovered");
+        }
+        try {
+            final RecoveryReport report = MappedCsvReader.scan(file);
+            if (!report.isIntact()) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate(report.getKeptBytes());
+                    channel.force(true);
                 }
-                maxId = Math.max(maxId, id);
             }
+            return report;
         } catch (IOException e) {
-            throw new ManagerLoadException("Error reading file!");
+            throw new ManagerLoadException("Error recovering file!");
+        }
+    }
+
+    /**
+     * Applies to snapshot based engines, see {@link SnapshotStorage#setCompressionLevel}.
+     * The page file and the journal are never compressed.
+     */
+    public void setCompressionLevel(int level) {
+        if (engine instanceof SnapshotStorage snapshots) {
+            snapshots.setCompressionLevel(level);
+        }
+    }
+
+    /**
+     * Applies to the journal engine, see {@link JournalStorage#setCompactionThreshold}.
+     */
+    public void setCompactionThreshold(long maxRecords, long maxSize) {
+        if (engine instanceof JournalStorage journal) {
+            journal.setCompactionThreshold(maxRecords, maxSize);
         }
-        manager.idCounter = maxId;
-        return manager;
+    }
+
+    public void close() {
+        committer.close();
+        if (history != null) {
+            history.close();
+        }
+        engine.close();
+    }
+
+    @Override
+    public synchronized List<Task> getHistory() {
+        return materialize(super.getHistory());
+    }
+
+    @Override
+    public synchronized List<Task> getPrioritizedTasks() {
+        return materialize(super.getPrioritizedTasks());
+    }
+
+    @Override
+    public synchronized List<Task> getAllTasks() {
+        return materialize(super.getAllTasks());
+    }
+
+    @Override
+    public synchronized Task getTaskById(Integer id) {
+        return materialize(super.getTaskById(id));
     }
 
     @Override
     public Task createTask(Task task) {
-        super.createTask(task);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.createTask(task);
+            ticket = persist(Change.put(task));
+        }
+        committer.await(ticket);
         return task;
     }
 
     @Override
     public void removeAllTasksFromManager() {
-        super.removeAllTasksFromManager();
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.removeAllTasksFromManager();
+            ticket = persist(Change.clear(TaskType.TASK));
+        }
+        committer.await(ticket);
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.updateTask(task);
+            ticket = persist(Change.put(task));
+        }
+        committer.await(ticket);
     }
 
     @Override
     public void removeTaskById(Integer id) {
-        super.removeTaskById(id);
-        save();
+        final long ticket;
+        synchronized (this) {
+            final Task task = find(tasks, id);
+            super.removeTaskById(id);
+            ticket = persist(Change.delete(task));
+        }
+        committer.await(ticket);
+    }
+
+    @Override
+    public synchronized List<Epic> getAllEpics() {
+        return materialize(super.getAllEpics());
     }
 
     @Override
     public void removeAllEpicsFromManager() {
-        super.removeAllEpicsFromManager();
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.removeAllEpicsFromManager();
+            ticket = persist(Change.clear(TaskType.EPIC));
+        }
+        committer.await(ticket);
+    }
+
+    @Override
+    public synchronized Epic getEpicById(Integer id) {
+        return materialize(super.getEpicById(id));
     }
 
     @Override
     public Epic createEpic(Epic epic) {
-        super.createEpic(epic);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.createEpic(epic);
+            ticket = persist(Change.put(epic));
+        }
+        committer.await(ticket);
         return epic;
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.updateEpic(epic);
+            ticket = persist(Change.put(epics.get(epic.getId())));
+        }
+        committer.await(ticket);
     }
 
     @Override
     public void removeEpicById(Integer id) {
-        super.removeEpicById(id);
-        save();
+        final long ticket;
+        synchronized (this) {
+            final Epic epic = find(epics, id);
+            super.removeEpicById(id);
+            ticket = persist(Change.delete(epic));
+        }
+        committer.await(ticket);
+    }
+
+    @Override
+    public synchronized List<Subtask> getAllSubtasks() {
+        return materialize(super.getAllSubtasks());
     }
 
     @Override
     public void removeAllSubtasksFromManager() {
-        super.removeAllSubtasksFromManager();
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.removeAllSubtasksFromManager();
+            ticket = persist(Change.clear(TaskType.SUBTASK));
+        }
+        committer.await(ticket);
+    }
+
+    @Override
+    public synchronized Subtask getSubtaskById(Integer id) {
+        return materialize(super.getSubtaskById(id));
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
-        super.createSubtask(subtask);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.createSubtask(subtask);
+            ticket = persist(Change.put(subtask));
+        }
+        committer.await(ticket);
         return subtask;
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        final long ticket;
+        synchronized (this) {
+            super.updateSubtask(subtask);
+            ticket = persist(Change.put(subtask));
+        }
+        committer.await(ticket);
     }
 
     @Override
     public void removeSubtaskById(Integer id) {
-        super.removeSubtaskById(id);
-        save();
+        final long ticket;
+        synchronized (this) {
+            final Subtask subtask = find(subtasks, id);
+            super.removeSubtaskById(id);
+            ticket = persist(Change.delete(subtask));
+        }
+        committer.await(ticket);
     }
 
-    private void save() {
-        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+    @Override
+    public synchronized List<Subtask> getAllSubtasksEpic(Integer id) {
+        return materialize(super.getAllSubtasksEpic(id));
+    }
+
+    /**
+     * The whole batch becomes durable with one commit, after it was applied in memory.
+     */
+    @Override
+    public List<Task> applyBatch(TaskBatch batch) {
+        final List<Task> results;
+        final long ticket;
+        synchronized (this) {
+            results = super.applyBatch(batch);
+            final List<TaskBatch.Operation> operations = batch.getOperations();
+            for (int i = 0; i < operations.size(); i++) {
+                final Task result = results.get(i);
+                engine.append(operations.get(i).getKind() == TaskBatch.Kind.DELETE ? Change.delete(result)
+                        : Change.put(result));
+            }
+            ticket = committer.submit();
+        }
+        committer.await(ticket);
+        return materialize(results);
+    }
 
-            writer.write("id,type,name,status,description,epic,duration,startTime\n");
+    private long persist(Change change) {
+        engine.append(change);
+        return committer.submit();
+    }
 
-            for (Task task : getAllTasks()) {
-                writer.write(toString(task) + "\n");
+    private void commit() throws IOException {
+        final StorageEngine.Commit commit;
+        synchronized (this) {
+            commit = engine.prepare(state);
+        }
+        commit.write();
+    }
+
+    // Tasks and subtasks are replaced on update, epics are copied because rollups change them in place
+    private List<Task> captureRows() {
+        materializeAll();
+        final List<Task> rows = new ArrayList<>(tasks.size() + epics.size() + subtasks.size());
+        rows.addAll(tasks.values());
+        for (Epic epic : epics.values()) {
+            final Epic copy = new Epic(epic.getId(), epic.getName(), epic.getDescription());
+            copy.setStatus(epic.getStatus());
+            copy.setStartTime(epic.getStartTime());
+            copy.setDuration(epic.getDuration());
+            copy.setEndTime(epic.getEndTime());
+            rows.add(copy);
+            rows.addAll(epic.getSubtasks());
+        }
+        return rows;
+    }
+
+    private void replay(Change change) {
+        final int id = change.getId();
+        switch (change.getKind()) {
+            case PUT -> restore(change.getTask());
+            case DELETE -> {
+                if (tasks.containsKey(id)) {
+                    super.removeTaskById(id);
+                } else if (epics.containsKey(id)) {
+                    super.removeEpicById(id);
+                } else if (subtasks.containsKey(id)) {
+                    super.removeSubtaskById(id);
+                }
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(toString(epic) + "\n");
+            case CLEAR -> {
+                switch (change.getType()) {
+                    case TASK -> super.removeAllTasksFromManager();
+                    case EPIC -> super.removeAllEpicsFromManager();
+                    case SUBTASK -> super.removeAllSubtasksFromManager();
+                }
+            }
+        }
+    }
 
-                for (Subtask subtask : getAllSubtasksEpic(epic.getId())) {
-                    writer.write(toString(subtask) + "\n");
+    /**
+     * Loads a whole snapshot. Epics go in first, so a subtask finds its epic wherever its row is,
+     * and a subtask whose epic is not in the snapshot fails the load.
+     * The timed tasks are then sorted once: one sweep finds every time conflict,
+     * the prioritized index is built from the sorted order, and each epic rollup is computed once.
+     */
+    private void restoreAll(List<Task> rows) {
+        for (Task row : rows) {
+            if (row.getType() == TaskType.EPIC) {
+                restore(row);
+            }
+        }
+        for (Task row : rows) {
+            final int id = row.getId();
+            switch (row.getType()) {
+                case TASK -> tasks.put(id, row);
+                case SUBTASK -> {
+                    final Subtask subtask = (Subtask) row;
+                    final Epic epic = find(epics, subtask.getEpicId());
+                    if (epic == null) {
+                        throw new ManagerLoadException("Subtask " + id + " refers to missing epic "
+                                + subtask.getEpicId());
+                    }
+                    final Subtask savedSubtask = subtasks.put(id, subtask);
+                    if (savedSubtask != null) {
+                        epics.get(savedSubtask.getEpicId()).removeSubtask(savedSubtask);
+                    }
+                    epic.addSubtask(subtask);
+                }
+                case EPIC -> {
                 }
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Error writing file!");
+            idCounter = Math.max(idCounter, id);
+        }
+
+        final List<Task> timed = new ArrayList<>(tasks.size() + subtasks.size());
+        timed.addAll(tasks.values());
+        timed.addAll(subtasks.values());
+        timed.sort(TaskIntervalTree.ORDER);
+
+        final List<Task[]> overlaps = TaskIntervalTree.findAllOverlaps(timed);
+        if (!overlaps.isEmpty()) {
+            final StringJoiner pairs = new StringJoiner(", ");
+            overlaps.forEach(pair -> pairs.add(pair[0].getId() + " and " + pair[1].getId()));
+            throw new ManagerLoadException("Tasks intersect in time: " + pairs);
         }
+        prioritizedTasks.rebuild(timed);
+
+        // an epic without subtasks keeps the time stored in its own row
+        epics.values().stream().filter(Epic::hasSubtasks).forEach(epic -> {
+            calculateEpicStatus(epic);
+            calculateEpicTime(epic);
+        });
     }
 
-    private Task fromString(String value) {
-        final String[] parts = value.split(",");
-        final Integer id = Integer.parseInt(parts[0]);
-        final TaskType type = TaskType.valueOf(parts[1]);
-        final String name = parts[2];
-        final TaskStatus status = TaskStatus.valueOf(parts[3]);
-        final String description = parts[4];
-        final Duration duration = Duration.parse(parts[6]);
-        final LocalDateTime startTime = LocalDateTime.parse(parts[7]);
+    /**
+     * Puts a loaded task into the manager, replacing the stored version with the same id.
+     * Records come from this manager's own files, so the time overlap is not checked here.
+     */
+    private void restore(Task task) {
+        final int id = task.getId();
 
-        return switch (type) {
-            case TASK -> new Task(id, name, description, status, startTime, duration);
-            case EPIC -> new Epic(id, name, description, status, startTime, duration);
+        switch (task.getType()) {
+            case TASK -> {
+                final Task savedTask = tasks.put(id, task);
+                if (savedTask != null) {
+                    prioritizedTasks.remove(savedTask);
+                }
+                prioritizedTasks.add(task);
+            }
+            case EPIC -> {
+                final Epic savedEpic = epics.get(id);
+                if (savedEpic == null) {
+                    epics.put(id, (Epic) task);
+                } else {
+                    savedEpic.setName(task.getName());
+                    savedEpic.setDescription(task.getDescription());
+                }
+            }
             case SUBTASK -> {
-                final int epicId = Integer.parseInt(parts[5]);
-                yield new Subtask(id, epicId, name, description, status, startTime, duration);
+                final Subtask subtask = (Subtask) task;
+                final Epic epic = epics.get(subtask.getEpicId());
+                if (epic == null) {
+                    // replayed over a snapshot that already has the epic removed
+                    return;
+                }
+                final Subtask savedSubtask = subtasks.put(id, subtask);
+                if (savedSubtask != null) {
+                    prioritizedTasks.remove(savedSubtask);
+                    epic.removeSubtask(savedSubtask);
+                }
+                prioritizedTasks.add(subtask);
+                epic.addSubtask(subtask);
+                calculateEpicStatus(epic);
+                calculateEpicTime(epic);
             }
-        };
+        }
+        idCounter = Math.max(idCounter, id);
     }
 
-    private String toString(Task task) {
-        return task.getId() + "," +
-                task.getType() + "," +
-                task.getName() + "," +
-                task.getStatus() + "," +
-                task.getDescription() + "," +
-                task.getEpicId() + "," +
-                task.getDuration() + "," +
-                task.getStartTime();
+    private <T extends Task> T materialize(T task) {
+        if (task != null) {
+            engine.materialize(task);
+        }
+        return task;
+    }
+
+    private <T extends Task> List<T> materialize(List<T> list) {
+        list.forEach(engine::materialize);
+        return list;
+    }
+
+    // A snapshot rewrites the file the deferred rows point into
+    private void materializeAll() {
+        tasks.values().forEach(engine::materialize);
+        epics.values().forEach(engine::materialize);
+        subtasks.values().forEach(engine::materialize);
+    }
+
+    private Task lookup(int id) {
+        final Task task = tasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        final Epic epic = epics.get(id);
+        return epic != null ? epic : subtasks.get(id);
     }
 }
@@ -0,0 +1,152 @@
+package service;
+
+import exceptions.ManagerSaveException;
+
+import java.io.IOException;
+
+/**
+ * Turns many mutations into few flushes. Every mutation takes a ticket with {@link #submit()},
+ * a flush covers all tickets issued before it started, and {@link #await(long)} blocks
+ * according to the {@link DurabilityPolicy} until the ticket is covered.
+ */
+class GroupCommitter implements AutoCloseable {
+
+    interface Flush {
+        void run() throws IOException;
+    }
+
+    private final DurabilityPolicy policy;
+    private final Flush flush;
+    private final Object flushLock = new Object();
+    private final Thread flusher;
+
+    private long submitted;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+
+    GroupCommitter(DurabilityPolicy policy, Flush flush, String name) {
+        this.policy = policy;
+        this.flush = flush;
+        if (policy.getMode() == DurabilityPolicy.Mode.SYNC) {
+            this.flusher = null;
+        } else {
+            this.flusher = new Thread(this::runFlusher, name);
+            this.flusher.setDaemon(true);
+            this.flusher.start();
+        }
+    }
+
+    synchronized long submit() {
+        final long ticket = ++submitted;
+        final long pending = ticket - durable;
+        if (pending == 1 || pending >= policy.getMaxOperations()) {
+            notifyAll();
+        }
+        return ticket;
+    }
+
+    void await(long ticket) {
+        switch (policy.getMode()) {
+            case SYNC -> flushUpTo(ticket);
+            case GROUP_COMMIT -> waitFor(ticket);
+            case WRITE_BEHIND -> {
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushUpTo(currentTicket());
+    }
+
+    private synchronized long currentTicket() {
+        return submitted;
+    }
+
+    private synchronized void waitFor(long ticket) {
+        while (durable < ticket) {
+            if (failure != null) {
+                throw new ManagerSaveException("Error writing file: " + failure.getMessage());
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ManagerSaveException("Interrupted while waiting for flush");
+            }
+        }
+    }
+
+    private void flushUpTo(long ticket) {
+        synchronized (flushLock) {
+            final long target;
+            synchronized (this) {
+                if (durable >= ticket) {
+                    return;
+                }
+                target = submitted;
+            }
+            try {
+                flush.run();
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                throw new ManagerSaveException("Error writing file: " + e.getMessage());
+            }
+            synchronized (this) {
+                durable = target;
+                failure = null;
+                notifyAll();
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            final long ticket;
+            synchronized (this) {
+                try {
+                    while (!closed && submitted == durable) {
+                        wait();
+                    }
+                    final long deadline = System.currentTimeMillis() + policy.getIntervalMillis();
+                    long remaining = policy.getIntervalMillis();
+                    while (!closed && submitted - durable < policy.getMaxOperations() && remaining > 0) {
+                        wait(remaining);
+                        remaining = deadline - System.currentTimeMillis();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (closed) {
+                    return;
+                }
+                ticket = submitted;
+            }
+            try {
+                flushUpTo(ticket);
+            } catch (ManagerSaveException e) {
+                // reported to the waiting writers, the next round retries after a pause
+                try {
+                    Thread.sleep(Math.max(policy.getIntervalMillis(), 1));
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,15 +1,14 @@
 package service;
 
 import model.Task;
+import util.IntObjectHashMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
 
-    private final Map<Integer, Node> history = new HashMap<>();
+    private final IntObjectHashMap<Node> history = new IntObjectHashMap<>();
 
     private Node first;
     private Node last;
@@ -76,6 +75,14 @@ public class InMemoryHistoryManager implements HistoryManager {
         return getTasks();
     }
 
+    boolean contains(int id) {
+        return history.containsKey(id);
+    }
+
+    int size() {
+        return history.size();
+    }
+
     private static class Node {
         Task item;
         Node next;
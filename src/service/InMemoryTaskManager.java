@@ -6,27 +6,29 @@ import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
+import util.IntObjectHashMap;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
 
-    protected final Map<Integer, Task> tasks = new HashMap<>();
+    protected final IntObjectHashMap<Task> tasks = new IntObjectHashMap<>();
 
-    protected final Map<Integer, Epic> epics = new HashMap<>();
+    protected final IntObjectHashMap<Epic> epics = new IntObjectHashMap<>();
 
-    protected final Map<Integer, Subtask> subtasks = new HashMap<>();
+    protected final IntObjectHashMap<Subtask> subtasks = new IntObjectHashMap<>();
 
     private final HistoryManager historyManager;
 
-    protected TreeSet<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    protected final TaskIntervalTree prioritizedTasks = new TaskIntervalTree();
 
     protected int idCounter;
 
+    private final VersionClock versions = new VersionClock();
+
     public InMemoryTaskManager(HistoryManager historyManager) {
         this.historyManager = historyManager;
     }
@@ -36,27 +38,28 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return prioritizedTasks.toList();
     }
 
     @Override
     public List<Task> getAllTasks() {
-        return new ArrayList<>(tasks.values());
+        return tasks.values();
     }
 
     @Override
     public void removeAllTasksFromManager() {
-        removeFromHistory(tasks.keySet());
+        discard(tasks.keys());
         prioritizedTasks.removeAll(tasks.values());
         tasks.clear();
+        versions.tick(TaskType.TASK);
     }
 
     @Override
     public Task getTaskById(Integer id) {
-        final Task task = Optional.ofNullable(tasks.get(id))
+        final Task task = Optional.ofNullable(find(tasks, id))
                 .orElseThrow(() -> new NotFoundException("Task with id " + id + " not found"));
 
-        historyManager.add(task);
+        addToHistory(task);
         return task;
     }
 
@@ -66,46 +69,52 @@ public class InMemoryTaskManager implements TaskManager {
         task.setId(generateId());
         tasks.put(task.getId(), task);
         prioritizedTasks.add(task);
+        versions.revise(versions.tick(TaskType.TASK), task.getId());
         return task;
     }
 
     @Override
     public void updateTask(Task task) {
-        final Task savedTask = Optional.ofNullable(tasks.get(task.getId()))
+        final Task savedTask = Optional.ofNullable(find(tasks, task.getId()))
                 .orElseThrow(() -> new NotFoundException("Task with id " + task.getId() + " not found"));
 
         checkTaskTime(task);
         prioritizedTasks.remove(savedTask);
         tasks.put(task.getId(), task);
         prioritizedTasks.add(task);
+        versions.revise(versions.tick(TaskType.TASK), task.getId());
     }
 
     @Override
     public void removeTaskById(Integer id) {
-        final Task task = Optional.ofNullable(tasks.remove(id))
+        final Task task = Optional.ofNullable(take(tasks, id))
                 .orElseThrow(() -> new NotFoundException("Task with id " + id + " not found"));
 
-        historyManager.remove(id);
+        discard(id);
         prioritizedTasks.remove(task);
+        versions.tick(TaskType.TASK);
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new ArrayList<>(epics.values());
+        return epics.values();
     }
 
     @Override
     public void removeAllEpicsFromManager() {
-        Stream.of(epics.keySet(), subtasks.keySet()).forEach(this::removeFromHistory);
-        Stream.of(epics, subtasks).forEach(Map::clear);
+        Stream.of(epics.keys(), subtasks.keys()).forEach(this::discard);
+        prioritizedTasks.removeAll(subtasks.values());
+        epics.clear();
+        subtasks.clear();
+        versions.tick(TaskType.EPIC, TaskType.SUBTASK);
     }
 
     @Override
     public Epic getEpicById(Integer id) {
-        final Epic epic = Optional.ofNullable(epics.get(id))
+        final Epic epic = Optional.ofNullable(find(epics, id))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + id + " not found"));
 
-        historyManager.add(epic);
+        addToHistory(epic);
         return epic;
     }
 
@@ -113,35 +122,38 @@ public class InMemoryTaskManager implements TaskManager {
     public Epic createEpic(Epic epic) {
         epic.setId(generateId());
         epics.put(epic.getId(), epic);
+        versions.revise(versions.tick(TaskType.EPIC), epic.getId());
         return epic;
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        final Epic savedEpic = Optional.ofNullable(epics.get(epic.getId()))
+        final Epic savedEpic = Optional.ofNullable(find(epics, epic.getId()))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + epic.getId() + " not found"));
 
         savedEpic.setName(epic.getName());
         savedEpic.setDescription(epic.getDescription());
+        versions.revise(versions.tick(TaskType.EPIC), savedEpic.getId());
     }
 
     @Override
     public void removeEpicById(Integer id) {
-        final Epic epic = Optional.ofNullable(epics.remove(id))
+        final Epic epic = Optional.ofNullable(take(epics, id))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + id + " not found"));
 
         epic.getSubtasks().stream()
                 .map(Subtask::getId)
                 .forEach(subtaskId -> {
-                    historyManager.remove(subtaskId);
-                    subtasks.remove(subtaskId);
+                    discard(subtaskId);
+                    prioritizedTasks.remove(subtasks.remove(subtaskId));
                 });
-        historyManager.remove(id);
+        discard(id);
+        versions.tick(TaskType.EPIC, TaskType.SUBTASK);
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new ArrayList<>(subtasks.values());
+        return subtasks.values();
     }
 
     @Override
@@ -151,23 +163,24 @@ public class InMemoryTaskManager implements TaskManager {
             calculateEpicStatus(epic);
             calculateEpicTime(epic);
         });
-        removeFromHistory(subtasks.keySet());
+        discard(subtasks.keys());
         prioritizedTasks.removeAll(subtasks.values());
         subtasks.clear();
+        versions.revise(versions.tick(TaskType.EPIC, TaskType.SUBTASK), epics.keys());
     }
 
     @Override
     public Subtask getSubtaskById(Integer id) {
-        final Subtask subtask = Optional.ofNullable(subtasks.get(id))
+        final Subtask subtask = Optional.ofNullable(find(subtasks, id))
                 .orElseThrow(() -> new NotFoundException("Subtask with id " + id + " not found"));
 
-        historyManager.add(subtask);
+        addToHistory(subtask);
         return subtask;
     }
 
     @Override
     public Subtask createSubtask(Subtask subtask) {
-        final Epic epic = Optional.ofNullable(epics.get(subtask.getEpicId()))
+        final Epic epic = Optional.ofNullable(find(epics, subtask.getEpicId()))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + subtask.getEpicId() + " not found"));
 
         checkTaskTime(subtask);
@@ -179,15 +192,16 @@ public class InMemoryTaskManager implements TaskManager {
 
         subtasks.put(subtask.getId(), subtask);
         prioritizedTasks.add(subtask);
+        versions.revise(versions.tick(TaskType.EPIC, TaskType.SUBTASK), subtask.getId(), epic.getId());
         return subtask;
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        final Epic savedEpic = Optional.ofNullable(epics.get(subtask.getEpicId()))
+        final Epic savedEpic = Optional.ofNullable(find(epics, subtask.getEpicId()))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + subtask.getEpicId() + " not found"));
 
-        final Subtask savedSubtask = Optional.ofNullable(subtasks.get(subtask.getId()))
+        final Subtask savedSubtask = Optional.ofNullable(find(subtasks, subtask.getId()))
                 .orElseThrow(() -> new NotFoundException("Subtask with id " + subtask.getId() + " not found"));
 
         checkTaskTime(subtask);
@@ -201,11 +215,12 @@ public class InMemoryTaskManager implements TaskManager {
 
         subtasks.put(subtask.getId(), subtask);
         prioritizedTasks.add(subtask);
+        versions.revise(versions.tick(TaskType.EPIC, TaskType.SUBTASK), subtask.getId(), savedEpic.getId());
     }
 
     @Override
     public void removeSubtaskById(Integer id) {
-        final Subtask subtask = Optional.ofNullable(subtasks.remove(id))
+        final Subtask subtask = Optional.ofNullable(take(subtasks, id))
                 .orElseThrow(() -> new NotFoundException("Subtask with id " + id + " not found"));
 
         final int epicId = subtask.getEpicId();
@@ -214,76 +229,115 @@ public class InMemoryTaskManager implements TaskManager {
         calculateEpicStatus(epic);
         calculateEpicTime(epic);
 
-        historyManager.remove(id);
+        discard(id);
         prioritizedTasks.remove(subtask);
+        versions.revise(versions.tick(TaskType.EPIC, TaskType.SUBTASK), epicId);
     }
 
     @Override
     public List<Subtask> getAllSubtasksEpic(Integer id) {
-        final Epic epic = Optional.ofNullable(epics.get(id))
+        final Epic epic = Optional.ofNullable(find(epics, id))
                 .orElseThrow(() -> new NotFoundException("Epic with id " + id + " not found"));
 
         return epic.getSubtasks();
     }
 
-    protected void calculateEpicTime(Epic epic) {
-        LocalDateTime startTime = null;
-        Duration duration = Duration.ZERO;
-        LocalDateTime endTime = null;
+    @Override
+    public List<Task> applyBatch(TaskBatch batch) {
+        final BatchPlan plan = new BatchPlan(batch, tasks::get, epics::get, subtasks::get);
+        plan.validate(prioritizedTasks);
 
-        final List<Subtask> listOfEpicSubtasks = epic.getSubtasks();
+        final List<Task> results = plan.apply(tasks, epics, subtasks, this::generateId, this::discard);
+        plan.index(prioritizedTasks);
 
-        for (Subtask subtask : listOfEpicSubtasks) {
-            if (startTime == null || subtask.getStartTime().isBefore(startTime)) {
-                startTime = subtask.getStartTime();
-            }
-            if (endTime == null || subtask.getEndTime().isAfter(endTime)) {
-                endTime = subtask.getEndTime();
+        // each touched epic is recomputed once, however many of its subtasks the batch changed
+        for (Epic epic : plan.touchedEpics()) {
+            calculateEpicStatus(epic);
+            calculateEpicTime(epic);
+        }
+        if (!results.isEmpty()) {
+            final long stamp = versions.tick(TaskType.TASK, TaskType.EPIC, TaskType.SUBTASK);
+            for (Task task : results) {
+                if (isStored(task.getId())) {
+                    versions.revise(stamp, task.getId());
+                }
             }
-            duration = duration.plus(subtask.getDuration());
+            plan.touchedEpics().forEach(epic -> versions.revise(stamp, epic.getId()));
         }
-        epic.setStartTime(startTime);
-        epic.setDuration(duration);
-        epic.setEndTime(endTime);
+        return results;
+    }
+
+    protected void calculateEpicTime(Epic epic) {
+        epic.setStartTime(epic.getSubtasksStartTime());
+        epic.setDuration(epic.getSubtasksDuration());
+        epic.setEndTime(epic.getSubtasksEndTime());
     }
 
     protected void checkTaskTime(Task currentTask) {
-        prioritizedTasks.stream()
-                .filter(existingTask -> !Objects.equals(existingTask.getId(), currentTask.getId()))
-                .filter(existingTask -> checkTaskTimeIntersection(existingTask, currentTask))
-                .findFirst()
-                .ifPresent(existingTask -> {
-                    throw new ValidationException("New task" + " intersects with task " + existingTask.getId());
-                });
+        final Task existingTask = prioritizedTasks.findOverlap(currentTask);
+        if (existingTask != null) {
+            throw new ValidationException("New task" + " intersects with task " + existingTask.getId());
+        }
+    }
+
+    /**
+     * Looks up a boxed id, which is {@code null} when a request carries no id at all.
+     */
+    protected static <V> V find(IntObjectHashMap<V> map, Integer id) {
+        return id == null ? null : map.get(id);
+    }
+
+    protected static <V> V take(IntObjectHashMap<V> map, Integer id) {
+        return id == null ? null : map.remove(id);
     }
 
     private int generateId() {
         return ++idCounter;
     }
 
-    private void removeFromHistory(Collection<Integer> ids) {
-        ids.forEach(historyManager::remove);
+    @Override
+    public long getVersion() {
+        return versions.current();
     }
 
-    private void calculateEpicStatus(Epic epic) {
-        if (epic.getSubtasks().isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-        final Set<TaskStatus> uniqueStatus = epic.getSubtasks()
-                .stream()
-                .map(Subtask::getStatus)
-                .collect(Collectors.toSet());
-
-        if (uniqueStatus.size() == 1) {
-            epic.setStatus(uniqueStatus.iterator().next());
-        } else {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
+    @Override
+    public long getVersion(TaskType type) {
+        return versions.get(type);
+    }
+
+    @Override
+    public long getRevision(int id) {
+        return versions.revision(id);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return versions.history();
+    }
+
+    private void addToHistory(Task task) {
+        historyManager.add(task);
+        versions.tickHistory();
+    }
+
+    private boolean isStored(int id) {
+        return tasks.containsKey(id) || epics.containsKey(id) || subtasks.containsKey(id);
+    }
+
+    // Takes a removed task out of the history and drops its revision
+    private void discard(int id) {
+        historyManager.remove(id);
+        versions.tickHistory();
+        versions.forget(id);
+    }
+
+    private void discard(int[] ids) {
+        for (int id : ids) {
+            discard(id);
         }
     }
 
-    private boolean checkTaskTimeIntersection(Task existingTask, Task currentTask) {
-        return (existingTask.getStartTime().isBefore(currentTask.getEndTime())
-                && existingTask.getEndTime().isAfter(currentTask.getStartTime()));
+    protected void calculateEpicStatus(Epic epic) {
+        epic.setStatus(epic.getSubtasksStatus());
     }
 }
@@ -0,0 +1,121 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import model.Task;
+import model.TaskType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Keeps a base snapshot plus a {@link TaskJournal} of the changes made since: a commit appends
+ * one record per change instead of rewriting the whole file.
+ * Once the journal grows past the compaction threshold the snapshot is rewritten in the background.
+ */
+public class JournalStorage extends SnapshotStorage {
+
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DELETE";
+    private static final String CLEAR = "CLEAR";
+
+    private static final long DEFAULT_COMPACTION_RECORDS = 10_000;
+    private static final long DEFAULT_COMPACTION_SIZE = 8 * 1024 * 1024;
+
+    private final TaskJournal journal;
+
+    private ExecutorService compactor;
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private volatile long compactionRecords = DEFAULT_COMPACTION_RECORDS;
+    private volatile long compactionSize = DEFAULT_COMPACTION_SIZE;
+
+    public JournalStorage(Path file) {
+        this(file, LoadMode.BUFFERED);
+    }
+
+    public JournalStorage(Path file, LoadMode loadMode) {
+        super(file, loadMode);
+        this.journal = new TaskJournal(file);
+    }
+
+    public void setCompactionThreshold(long maxRecords, long maxSize) {
+        this.compactionRecords = maxRecords;
+        this.compactionSize = maxSize;
+    }
+
+    @Override
+    public void replay(Consumer<Change> changes) {
+        journal.replay(record -> {
+            final Change change = parse(record);
+            super.append(change);
+            changes.accept(change);
+        });
+    }
+
+    @Override
+    public void append(Change change) {
+        super.append(change);
+        journal.append(switch (change.getKind()) {
+            case PUT -> PUT + "," + CsvTaskFormat.toString(change.getTask());
+            case DELETE -> DELETE + "," + change.getId();
+            case CLEAR -> CLEAR + "," + change.getType();
+        });
+    }
+
+    @Override
+    public Commit prepare(State state) {
+        if (compaction.isDone() && journal.exceeds(compactionRecords, compactionSize)) {
+            compact(state.rows());
+        }
+        return journal::flush;
+    }
+
+    @Override
+    public void close() {
+        compaction.join();
+        if (compactor != null) {
+            compactor.shutdown();
+        }
+        journal.close();
+    }
+
+    /**
+     * Rotates the journal and writes the snapshot on a background thread.
+     * Writers keep appending to the fresh journal while the snapshot is being written.
+     */
+    private void compact(List<Task> rows) {
+        journal.rotate();
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "task-snapshot-" + file.getFileName());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        compaction = CompletableFuture.runAsync(() -> {
+            try {
+                snapshot(rows);
+                journal.deleteRotated();
+            } catch (IOException e) {
+                // the rotated journal is kept and replayed on load, the next compaction retries
+            }
+        }, compactor);
+    }
+
+    private static Change parse(String record) {
+        final int separator = record.indexOf(',');
+        final String operation = record.substring(0, separator);
+        final String argument = record.substring(separator + 1);
+
+        return switch (operation) {
+            case PUT -> Change.put(CsvTaskFormat.fromString(argument));
+            case DELETE -> Change.delete(Integer.parseInt(argument));
+            case CLEAR -> Change.clear(TaskType.valueOf(argument));
+            default -> throw new ManagerLoadException("Unknown journal record: " + record);
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package service;
+
+import model.Task;
+import util.IntLongHashMap;
+
+/**
+ * Rows of a mapped CSV snapshot whose name and description have not been read yet,
+ * indexed by id with the offset of their line.
+ */
+final class LazyRows {
+
+    private final MappedCsvReader reader;
+    private final IntLongHashMap offsets;
+
+    LazyRows(MappedCsvReader reader, IntLongHashMap offsets) {
+        this.reader = reader;
+        this.offsets = offsets;
+    }
+
+    void materialize(Task task) {
+        final long offset = offsets.remove(task.getId(), -1);
+        if (offset >= 0) {
+            reader.readText((int) offset, task);
+        }
+    }
+
+    /**
+     * Drops the row of a task that was replaced or removed, its line no longer describes it.
+     */
+    void forget(int id) {
+        offsets.remove(id, -1);
+    }
+
+    boolean isEmpty() {
+        return offsets.isEmpty();
+    }
+}
@@ -0,0 +1,25 @@
+package service;
+
+/**
+ * How {@link FileBackedTaskManager#loadFromFile} reads a CSV snapshot.
+ * Binary snapshots are always read with one buffered stream.
+ */
+public enum LoadMode {
+    /**
+     * Line by line through a {@link java.io.BufferedReader}.
+     */
+    BUFFERED,
+    /**
+     * Parsed in place from a memory-mapped file, without a string per line.
+     */
+    MAPPED,
+    /**
+     * Mapped like {@link #MAPPED}, with line-aligned chunks parsed on the common fork-join pool.
+     */
+    PARALLEL,
+    /**
+     * Mapped like {@link #MAPPED}, but names and descriptions are only read when a task is first
+     * returned to a caller. The file stays mapped until every row is read or the manager saves.
+     */
+    LAZY
+}
@@ -8,10 +8,18 @@ public class Managers {
         return new InMemoryTaskManager(getDefaultHistory());
     }
 
+    public static TaskManager getDefaultConcurrent() {
+        return new ConcurrentTaskManager(getDefaultHistory());
+    }
+
     public static TaskManager getDefaultFileBacked(Path file) {
         return FileBackedTaskManager.loadFromFile(file);
     }
 
+    public static TaskManager getDefaultStored(StorageEngine engine) {
+        return FileBackedTaskManager.load(getDefaultHistory(), engine, DurabilityPolicy.sync());
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
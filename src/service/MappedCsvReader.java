@@ -0,0 +1,466 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads CSV rows straight from a memory-mapped file. Numbers, enums, durations and dates are
+ * decoded from the bytes in place; the only strings created per row are the name and the description.
+ * Values in an unexpected shape fall back to the JDK parsers, so the result matches {@link CsvTaskFormat}.
+ */
+final class MappedCsvReader {
+
+    private static final int FIELDS = 9;
+    private static final byte[] CHECKSUM_COLUMN = CsvTaskFormat.CHECKSUM_COLUMN.getBytes(StandardCharsets.US_ASCII);
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ByteBuffer buffer;
+    private final ByteBuffer view;
+    private final boolean checked;
+    private final int fields;
+    private final int[] starts = new int[FIELDS];
+    private final int[] ends = new int[FIELDS];
+    private final CRC32C crc = new CRC32C();
+    private byte[] chars = new byte[256];
+
+    MappedCsvReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.view = buffer.duplicate();
+        this.checked = hasChecksums();
+        this.fields = checked ? FIELDS : FIELDS - 1;
+    }
+
+    static void read(Path file, Consumer<Task> consumer) throws IOException {
+        final ByteBuffer buffer = map(file);
+        final MappedCsvReader reader = new MappedCsvReader(buffer);
+        reader.readRows(reader.nextLine(0), buffer.limit(), consumer);
+    }
+
+    /**
+     * Splits the rows into line-aligned chunks and parses them on the common fork-join pool.
+     * Rows are handed to the consumer on the calling thread: the epics of all chunks first,
+     * so a subtask always finds its epic even if the epic row sits in another chunk,
+     * then every other row in file order.
+     */
+    static void readParallel(Path file, Consumer<Task> consumer) throws IOException {
+        final ByteBuffer buffer = map(file);
+        final int from = new MappedCsvReader(buffer).nextLine(0);
+        final int to = buffer.limit();
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final int chunkCount = Math.max(1, Math.min(pool.getParallelism() * CHUNKS_PER_THREAD,
+                (to - from) / MIN_CHUNK_SIZE));
+        final long chunkSize = Math.max(1, (to - from) / chunkCount);
+
+        final List<ForkJoinTask<Chunk>> chunks = new ArrayList<>(chunkCount);
+        int start = from;
+        for (int i = 1; i <= chunkCount && start < to; i++) {
+            final MappedCsvReader reader = new MappedCsvReader(buffer);
+            final int end = i == chunkCount ? to : Math.max(start, reader.nextLine((int) (from + i * chunkSize) - 1));
+            final int chunkStart = start;
+            chunks.add(pool.submit(() -> reader.readChunk(chunkStart, end)));
+            start = end;
+        }
+
+        final List<Chunk> parsed = new ArrayList<>(chunks.size());
+        for (ForkJoinTask<Chunk> chunk : chunks) {
+            parsed.add(chunk.join());
+        }
+        parsed.forEach(chunk -> chunk.epics.forEach(consumer));
+        parsed.forEach(chunk -> chunk.rows.forEach(consumer));
+    }
+
+    /**
+     * Reads rows without their name and description, passing each with the offset of its line,
+     * so {@link #readText} can fill the text in later.
+     */
+    static MappedCsvReader readSkeletons(Path file, ObjIntConsumer<Task> consumer) throws IOException {
+        final MappedCsvReader reader = new MappedCsvReader(map(file));
+        reader.readRows(reader.nextLine(0), reader.buffer.limit(), false, consumer);
+        return reader;
+    }
+
+    /**
+     * Scans the rows once and reports the longest prefix of complete, valid rows.
+     * A row is valid if its checksum matches, or in a file without checksums if it has every column.
+     */
+    static RecoveryReport scan(Path file) throws IOException {
+        final MappedCsvReader reader = new MappedCsvReader(map(file));
+        final ByteBuffer buffer = reader.buffer;
+        final int limit = buffer.limit();
+        if (limit == 0) {
+            return new RecoveryReport(0, 0, 0, 0, -1, null);
+        }
+        int position = reader.nextLine(0);
+        long kept = 0;
+        String reason = null;
+        if (buffer.get(position - 1) != '\n') {
+            position = 0;
+            reason = "Incomplete header";
+        }
+        while (reason == null && position < limit) {
+            int end = position;
+            while (end < limit && buffer.get(end) != '\n') {
+                end++;
+            }
+            if (end == limit) {
+                reason = "Incomplete row";
+                break;
+            }
+            final int rowEnd = end > position && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            if (rowEnd > position) {
+                if (!reader.isValidRow(position, rowEnd)) {
+                    reason = reader.checked ? "Checksum mismatch" : "Malformed row";
+                    break;
+                }
+                kept++;
+            }
+            position = end + 1;
+        }
+        if (reason == null) {
+            return new RecoveryReport(kept, 0, limit, 0, -1, null);
+        }
+        long dropped = 0;
+        for (int i = position; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                dropped++;
+            }
+        }
+        if (buffer.get(limit - 1) != '\n') {
+            dropped++;
+        }
+        if (position == 0) {
+            // the header line is not a record
+            dropped--;
+        }
+        final long firstInvalidLine = position == 0 ? 1 : kept + 2;
+        return new RecoveryReport(kept, dropped, position, limit - position, firstInvalidLine, reason);
+    }
+
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Returns the position right after the line break that ends the line containing {@code position}.
+     */
+    int nextLine(int position) {
+        final int limit = buffer.limit();
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return Math.min(position + 1, limit);
+    }
+
+    /**
+     * Checks a row without parsing it: the checksum if the file has them, otherwise the field count.
+     */
+    boolean isValidRow(int from, int to) {
+        if (!checked) {
+            int separators = 0;
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) == ',') {
+                    separators++;
+                }
+            }
+            return separators == fields - 1;
+        }
+        int separator = to - 1;
+        while (separator >= from && buffer.get(separator) != ',') {
+            separator--;
+        }
+        if (separator < from || to - separator - 1 < 1 || to - separator - 1 > 8) {
+            return false;
+        }
+        long expected = 0;
+        for (int i = separator + 1; i < to; i++) {
+            final int digit = Character.digit(buffer.get(i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            expected = expected << 4 | digit;
+        }
+        crc.reset();
+        view.limit(separator).position(from);
+        crc.update(view);
+        view.clear();
+        return crc.getValue() == expected;
+    }
+
+    /**
+     * Parses the rows in {@code [from, to)}, {@code from} must be the start of a line.
+     */
+    void readRows(int from, int to, Consumer<Task> consumer) {
+        readRows(from, to, true, (task, offset) -> consumer.accept(task));
+    }
+
+    /**
+     * Sets the name and description of a task from the row that starts at {@code offset}.
+     */
+    void readText(int offset, Task task) {
+        int end = offset;
+        while (end < buffer.limit() && buffer.get(end) != '\n') {
+            end++;
+        }
+        if (end > offset && buffer.get(end - 1) == '\r') {
+            end--;
+        }
+        split(offset, end);
+        task.setName(text(starts[2], ends[2]));
+        task.setDescription(text(starts[4], ends[4]));
+    }
+
+    private void readRows(int from, int to, boolean withText, ObjIntConsumer<Task> consumer) {
+        int position = from;
+        while (position < to) {
+            int end = position;
+            while (end < to && buffer.get(end) != '\n') {
+                end++;
+            }
+            final int next = end + 1;
+            if (end > position && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end > position) {
+                consumer.accept(parseRow(position, end, withText), position);
+            }
+            position = next;
+        }
+    }
+
+    private Chunk readChunk(int from, int to) {
+        final Chunk chunk = new Chunk();
+        readRows(from, to, task -> {
+            if (task.getType() == TaskType.EPIC) {
+                chunk.epics.add(task);
+            } else {
+                chunk.rows.add(task);
+            }
+        });
+        return chunk;
+    }
+
+    private Task parseRow(int from, int to, boolean withText) {
+        if (checked && !isValidRow(from, to)) {
+            throw new ManagerLoadException("Checksum mismatch at offset " + from);
+        }
+        split(from, to);
+
+        final int id = parseInt(0);
+        final TaskType type = parseType();
+        final String name = withText ? text(starts[2], ends[2]) : null;
+        final TaskStatus status = parseStatus();
+        final String description = withText ? text(starts[4], ends[4]) : null;
+        final Duration duration = parseDuration();
+        final LocalDateTime startTime = parseDateTime();
+
+        return switch (type) {
+            case TASK -> new Task(id, name, description, status, startTime, duration);
+            case EPIC -> CsvTaskFormat.epic(id, name, description, status, startTime, duration);
+            case SUBTASK -> new Subtask(id, parseInt(5), name, description, status, startTime, duration);
+        };
+    }
+
+    private void split(int from, int to) {
+        int field = 0;
+        starts[0] = from;
+        for (int i = from; i < to && field < fields - 1; i++) {
+            if (buffer.get(i) == ',') {
+                ends[field] = i;
+                starts[++field] = i + 1;
+            }
+        }
+        if (field != fields - 1) {
+            throw new IllegalArgumentException("Malformed row: " + text(from, to));
+        }
+        ends[field] = to;
+    }
+
+    private int parseInt(int field) {
+        return (int) digits(starts[field], ends[field], field);
+    }
+
+    private long digits(int from, int to, int field) {
+        if (from == to) {
+            throw new NumberFormatException("Empty number in field " + field);
+        }
+        long value = 0;
+        for (int i = from; i < to; i++) {
+            final int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + text(starts[field], ends[field]) + "\"");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private TaskType parseType() {
+        final int length = ends[1] - starts[1];
+        final byte first = buffer.get(starts[1]);
+        if (first == 'T' && length == 4) {
+            return TaskType.TASK;
+        } else if (first == 'E' && length == 4) {
+            return TaskType.EPIC;
+        } else if (first == 'S' && length == 7) {
+            return TaskType.SUBTASK;
+        }
+        return TaskType.valueOf(text(starts[1], ends[1]));
+    }
+
+    private TaskStatus parseStatus() {
+        final int length = ends[3] - starts[3];
+        final byte first = buffer.get(starts[3]);
+        if (first == 'N' && length == 3) {
+            return TaskStatus.NEW;
+        } else if (first == 'I' && length == 11) {
+            return TaskStatus.IN_PROGRESS;
+        } else if (first == 'D' && length == 4) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.valueOf(text(starts[3], ends[3]));
+    }
+
+    // Duration.toString: PT[nH][nM][n[.fraction]S], only seconds carry a fraction
+    private Duration parseDuration() {
+        final int from = starts[6];
+        final int to = ends[6];
+        if (to - from < 4 || buffer.get(from) != 'P' || buffer.get(from + 1) != 'T') {
+            return Duration.parse(text(from, to));
+        }
+        long seconds = 0;
+        long nanos = 0;
+        int i = from + 2;
+        while (i < to) {
+            final boolean negative = buffer.get(i) == '-';
+            if (negative) {
+                i++;
+            }
+            final int numberStart = i;
+            while (i < to && isDigit(buffer.get(i))) {
+                i++;
+            }
+            if (i == numberStart || i == to) {
+                return Duration.parse(text(from, to));
+            }
+            final long value = digits(numberStart, i, 6);
+            long fraction = 0;
+            if (buffer.get(i) == '.') {
+                final int fractionStart = ++i;
+                while (i < to && isDigit(buffer.get(i))) {
+                    i++;
+                }
+                if (i == to || i - fractionStart > 9) {
+                    return Duration.parse(text(from, to));
+                }
+                fraction = digits(fractionStart, i, 6);
+                for (int scale = i - fractionStart; scale < 9; scale++) {
+                    fraction *= 10;
+                }
+            }
+            final byte unit = buffer.get(i++);
+            final long sign = negative ? -1 : 1;
+            switch (unit) {
+                case 'H' -> seconds += sign * value * 3600;
+                case 'M' -> seconds += sign * value * 60;
+                case 'S' -> {
+                    seconds += sign * value;
+                    nanos += sign * fraction;
+                }
+                default -> {
+                    return Duration.parse(text(from, to));
+                }
+            }
+            if (fraction != 0 && unit != 'S') {
+                return Duration.parse(text(from, to));
+            }
+        }
+        return Duration.ofSeconds(seconds, nanos);
+    }
+
+    // LocalDateTime.toString: uuuu-MM-ddTHH:mm[:ss[.fraction]]
+    private LocalDateTime parseDateTime() {
+        final int from = starts[7];
+        final int to = ends[7];
+        final int length = to - from;
+        if (length == 4 && buffer.get(from) == 'n') {
+            return null;
+        }
+        if (length < 16 || buffer.get(from + 4) != '-' || buffer.get(from + 7) != '-'
+                || buffer.get(from + 10) != 'T' || buffer.get(from + 13) != ':'
+                || (length > 16 && (length < 19 || buffer.get(from + 16) != ':'))
+                || (length > 19 && (length < 21 || length > 29 || buffer.get(from + 19) != '.'))) {
+            return LocalDateTime.parse(text(from, to));
+        }
+        final int year = (int) digits(from, from + 4, 7);
+        final int month = (int) digits(from + 5, from + 7, 7);
+        final int day = (int) digits(from + 8, from + 10, 7);
+        final int hour = (int) digits(from + 11, from + 13, 7);
+        final int minute = (int) digits(from + 14, from + 16, 7);
+        final int second = length > 16 ? (int) digits(from + 17, from + 19, 7) : 0;
+        int nano = 0;
+        if (length > 19) {
+            nano = (int) digits(from + 20, to, 7);
+            for (int scale = length - 20; scale < 9; scale++) {
+                nano *= 10;
+            }
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    private String text(int from, int to) {
+        final int length = to - from;
+        if (chars.length < length) {
+            chars = new byte[Math.max(length, chars.length * 2)];
+        }
+        buffer.get(from, chars, 0, length);
+        return new String(chars, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private boolean hasChecksums() {
+        int end = nextLine(0) - 1;
+        while (end >= 0 && (buffer.get(end) == '\n' || buffer.get(end) == '\r')) {
+            end--;
+        }
+        final int from = end + 1 - CHECKSUM_COLUMN.length;
+        if (from < 0) {
+            return false;
+        }
+        for (int i = 0; i < CHECKSUM_COLUMN.length; i++) {
+            if (buffer.get(from + i) != CHECKSUM_COLUMN[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(byte value) {
+        return value >= '0' && value <= '9';
+    }
+
+    private static final class Chunk {
+        private final List<Task> epics = new ArrayList<>();
+        private final List<Task> rows = new ArrayList<>();
+    }
+}
@@ -0,0 +1,79 @@
+package service;
+
+import model.Task;
+import model.TaskType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the tasks in memory, mainly for tests: a manager loaded from the same engine later sees
+ * exactly the changes that were committed before. Tasks are stored as copies, so the objects a manager
+ * keeps changing never leak into the stored state.
+ */
+public class MemoryStorage implements StorageEngine {
+
+    private final Map<Integer, Task> rows = new LinkedHashMap<>();
+    private final List<Change> pending = new ArrayList<>();
+
+    private long commits;
+
+    @Override
+    public synchronized void load(Consumer<Task> consumer) {
+        rows.values().forEach(row -> consumer.accept(copy(row)));
+    }
+
+    @Override
+    public synchronized void append(Change change) {
+        pending.add(change.getKind() == Change.Kind.PUT ? Change.put(copy(change.getTask())) : change);
+    }
+
+    @Override
+    public synchronized Commit prepare(State state) {
+        if (pending.isEmpty()) {
+            return Commit.NONE;
+        }
+        final List<Change> changes = new ArrayList<>(pending);
+        pending.clear();
+        return () -> apply(changes);
+    }
+
+    @Override
+    public synchronized void snapshot(List<Task> snapshot) {
+        rows.clear();
+        snapshot.forEach(row -> rows.put(row.getId(), copy(row)));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Number of commits that wrote at least one change.
+     */
+    public synchronized long getCommits() {
+        return commits;
+    }
+
+    private synchronized void apply(List<Change> changes) {
+        for (Change change : changes) {
+            switch (change.getKind()) {
+                case PUT -> rows.put(change.getId(), change.getTask());
+                case DELETE -> {
+                    rows.remove(change.getId());
+                    rows.values().removeIf(row -> Integer.valueOf(change.getId()).equals(row.getEpicId()));
+                }
+                case CLEAR -> rows.values().removeIf(row -> row.getType() == change.getType()
+                        || change.getType() == TaskType.EPIC && row.getType() == TaskType.SUBTASK);
+            }
+        }
+        commits++;
+    }
+
+    private static Task copy(Task task) {
+        return CsvTaskFormat.fromString(CsvTaskFormat.toString(task));
+    }
+}
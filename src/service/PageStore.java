@@ -0,0 +1,485 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import model.Task;
+import model.TaskType;
+import util.IntObjectHashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Task records kept in fixed-size pages of a single file, every page holds records of one entity type.
+ * <pre>
+ * page 0: magic "KBPG", version u8, page size i32
+ * page n: type u8 (0 free, 1 + type ordinal), span u16, record count u16, used bytes i32, records
+ * </pre>
+ * Records use the {@link BinaryTaskFormat} layout. A record too large for one page gets a block of
+ * several consecutive pages to itself.
+ * <p>
+ * Changes only mark blocks dirty. {@link #collect} serializes the dirty blocks and {@link #write}
+ * stores them with positional writes, so pages that did not change are never rewritten.
+ * Freeing a block, for example when a whole entity type is cleared, rewrites only its page headers.
+ * Free pages are kept in a free-space map and reused before the file grows.
+ * <p>
+ * A page write is not atomic, a crash in the middle of one can leave that page torn.
+ */
+class PageStore implements AutoCloseable {
+
+    static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private static final byte[] MAGIC = {'K', 'B', 'P', 'G'};
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int FREE = 0;
+
+    private static final TaskType[] TYPES = TaskType.values();
+
+    private final Path file;
+    private final int pageSize;
+    private final IntObjectHashMap<Entry> entries = new IntObjectHashMap<>();
+    private final Map<TaskType, Set<Block>> blocks = new EnumMap<>(TaskType.class);
+    private final Map<TaskType, TreeSet<Block>> openBlocks = new EnumMap<>(TaskType.class);
+    private final TreeSet<Integer> freePages = new TreeSet<>();
+    private final Set<Block> dirty = new LinkedHashSet<>();
+    private final Set<Integer> freed = new LinkedHashSet<>();
+
+    private FileChannel channel;
+    private int pageCount = 1;
+    private volatile boolean rewrite = true;
+
+    PageStore(Path file, int pageSize) {
+        this.file = file;
+        this.pageSize = pageSize;
+        for (TaskType type : TYPES) {
+            blocks.put(type, new LinkedHashSet<>());
+            openBlocks.put(type, new TreeSet<>(Comparator.comparingInt(Block::used).thenComparingInt(Block::index)));
+        }
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening page file!");
+        }
+    }
+
+    static boolean matches(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < MAGIC.length) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(MAGIC.length);
+            channel.read(header, 0);
+            return Arrays.equals(header.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Reads every record of an existing page file and returns {@code true}. A file in another layout
+     * is left alone and {@code false} returned, it is replaced by a complete page file on the first {@link #write}.
+     */
+    boolean load(Consumer<Task> consumer) {
+        try {
+            if (!matches(file)) {
+                return false;
+            }
+            final ByteBuffer header = read(0, HEADER_SIZE);
+            header.position(MAGIC.length);
+            final int version = header.get() & 0xFF;
+            final int storedPageSize = header.getInt();
+            if (version != VERSION || storedPageSize != pageSize) {
+                throw new ManagerLoadException("Unsupported page file: version " + version
+                        + ", page size " + storedPageSize);
+            }
+            pageCount = (int) (channel.size() / pageSize);
+            final BinaryTaskFormat.RecordReader reader = new BinaryTaskFormat.RecordReader();
+            int index = 1;
+            while (index < pageCount) {
+                final ByteBuffer pageHeader = read((long) index * pageSize, HEADER_SIZE);
+                final int type = pageHeader.get() & 0xFF;
+                final int span = Math.max(1, pageHeader.getShort() & 0xFFFF);
+                final int count = pageHeader.getShort() & 0xFFFF;
+                final int used = pageHeader.getInt();
+                if (type == FREE) {
+                    freePages.add(index);
+                    index++;
+                    continue;
+                }
+                final Block block = new Block(index, span, TYPES[type - 1]);
+                final ByteBuffer content = read((long) index * pageSize + HEADER_SIZE, used);
+                final DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array()));
+                for (int i = 0; i < count; i++) {
+                    final Task task = reader.read(in);
+                    attach(block, task.getId(), BinaryTaskFormat.recordSize(task), epicIdOf(task));
+                    consumer.accept(task);
+                }
+                register(block);
+                index += span;
+            }
+            rewrite = false;
+            return true;
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error reading page file!");
+        }
+    }
+
+    void put(Task task) {
+        final int id = task.getId();
+        final int size = BinaryTaskFormat.recordSize(task);
+        final Entry entry = entries.get(id);
+        if (entry != null) {
+            touch(entry.epicId);
+            final Block block = entry.block;
+            if (block.span == 1 && block.used - entry.size + size <= capacity(1)) {
+                resize(block, size - entry.size);
+                entry.size = size;
+                entry.epicId = epicIdOf(task);
+                touch(entry.epicId);
+                markDirty(block);
+                return;
+            }
+            detach(id, entry);
+        }
+        place(task, id, size);
+        touch(epicIdOf(task));
+    }
+
+    void remove(int id) {
+        final Entry entry = entries.get(id);
+        if (entry != null) {
+            detach(id, entry);
+            touch(entry.epicId);
+        }
+    }
+
+    /**
+     * Frees every block of the type. Clearing subtasks also marks the epic blocks dirty,
+     * because the epic rollups are stored with the epics.
+     */
+    void clear(TaskType type) {
+        for (Block block : new ArrayList<>(blocks.get(type))) {
+            for (int i = 0; i < block.count; i++) {
+                entries.remove(block.ids[i]);
+            }
+            free(block);
+        }
+        if (type == TaskType.SUBTASK) {
+            blocks.get(TaskType.EPIC).forEach(this::markDirty);
+        }
+    }
+
+    /**
+     * Serializes everything that changed since the last call, the lookup returns the current task by id.
+     * Must run under the lock that guards the tasks, {@link #write} can then run outside of it.
+     */
+    Batch collect(IntFunction<Task> lookup) {
+        final Batch batch = new Batch(rewrite);
+        rewrite = false;
+        final List<Block> changed = new ArrayList<>();
+        if (batch.replace) {
+            batch.writes.add(new PageWrite(0, fileHeader()));
+            blocks.values().forEach(changed::addAll);
+        } else {
+            for (int page : freed) {
+                batch.writes.add(new PageWrite((long) page * pageSize, freeHeader()));
+            }
+            changed.addAll(dirty);
+        }
+        for (Block block : changed) {
+            batch.writes.add(new PageWrite((long) block.index * pageSize, serialize(block, lookup)));
+        }
+        batch.pageCount = pageCount;
+        freed.clear();
+        dirty.clear();
+        return batch;
+    }
+
+    /**
+     * Stores a collected batch. The first batch of a store that did not start from a page file
+     * replaces the file as a whole through a temporary file. After a failed write the changes
+     * it carried are gone from the dirty set, so the next batch rewrites the whole file too.
+     */
+    synchronized void write(Batch batch) throws IOException {
+        if (batch.writes.isEmpty()) {
+            return;
+        }
+        try {
+            writeBatch(batch);
+        } catch (IOException e) {
+            rewrite = true;
+            throw e;
+        }
+    }
+
+    private void writeBatch(Batch batch) throws IOException {
+        if (batch.replace) {
+            final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                writeAll(target, batch);
+                target.force(false);
+            }
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return;
+        }
+        writeAll(channel, batch);
+        channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing page file!");
+        }
+    }
+
+    private void writeAll(FileChannel target, Batch batch) throws IOException {
+        for (PageWrite write : batch.writes) {
+            long position = write.position;
+            while (write.buffer.hasRemaining()) {
+                position += target.write(write.buffer, position);
+            }
+        }
+        // a trailing block may be shorter than its pages, the file always ends on a page boundary
+        final long size = (long) batch.pageCount * pageSize;
+        if (target.size() < size) {
+            target.write(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+
+    private void place(Task task, int id, int size) {
+        final Block block;
+        if (size > capacity(1)) {
+            final int span = (size + HEADER_SIZE + pageSize - 1) / pageSize;
+            block = new Block(pageCount, span, task.getType());
+            pageCount += span;
+            register(block);
+        } else {
+            // best fit: the fullest block that still has room
+            final Block candidate = openBlocks.get(task.getType()).floor(Block.probe(capacity(1) - size));
+            if (candidate != null) {
+                block = candidate;
+            } else {
+                final Integer page = freePages.pollFirst();
+                final int index = page == null ? pageCount++ : page;
+                freed.remove(index);
+                block = new Block(index, 1, task.getType());
+                register(block);
+            }
+        }
+        openBlocks.get(block.type).remove(block);
+        attach(block, id, size, epicIdOf(task));
+        if (block.span == 1) {
+            openBlocks.get(block.type).add(block);
+        }
+        markDirty(block);
+    }
+
+    private void attach(Block block, int id, int size, int epicId) {
+        block.add(id);
+        block.used += size;
+        entries.put(id, new Entry(block, size, epicId));
+    }
+
+    private void detach(int id, Entry entry) {
+        entries.remove(id);
+        final Block block = entry.block;
+        openBlocks.get(block.type).remove(block);
+        block.removeId(id);
+        block.used -= entry.size;
+        if (block.count == 0) {
+            free(block);
+        } else {
+            if (block.span == 1) {
+                openBlocks.get(block.type).add(block);
+            }
+            markDirty(block);
+        }
+    }
+
+    private void register(Block block) {
+        blocks.get(block.type).add(block);
+        if (block.span == 1) {
+            openBlocks.get(block.type).add(block);
+        }
+    }
+
+    private void free(Block block) {
+        blocks.get(block.type).remove(block);
+        openBlocks.get(block.type).remove(block);
+        dirty.remove(block);
+        for (int page = block.index; page < block.index + block.span; page++) {
+            freePages.add(page);
+            freed.add(page);
+        }
+    }
+
+    private void resize(Block block, int delta) {
+        final TreeSet<Block> open = openBlocks.get(block.type);
+        open.remove(block);
+        block.used += delta;
+        open.add(block);
+    }
+
+    private void markDirty(Block block) {
+        dirty.add(block);
+    }
+
+    private void touch(int epicId) {
+        if (epicId >= 0) {
+            final Entry epic = entries.get(epicId);
+            if (epic != null) {
+                markDirty(epic.block);
+            }
+        }
+    }
+
+    private ByteBuffer serialize(Block block, IntFunction<Task> lookup) {
+        final ByteArrayOutputStream records = new ByteArrayOutputStream(block.used);
+        final DataOutputStream out = new DataOutputStream(records);
+        try {
+            for (int i = 0; i < block.count; i++) {
+                BinaryTaskFormat.writeRecord(out, lookup.apply(block.ids[i]));
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error writing page!");
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + records.size());
+        buffer.put((byte) (block.type.ordinal() + 1));
+        buffer.putShort((short) block.span);
+        buffer.putShort((short) block.count);
+        buffer.putInt(records.size());
+        buffer.position(HEADER_SIZE);
+        buffer.put(records.toByteArray());
+        return buffer.flip();
+    }
+
+    private ByteBuffer fileHeader() {
+        final ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        buffer.put(MAGIC);
+        buffer.put((byte) VERSION);
+        buffer.putInt(pageSize);
+        return buffer.clear();
+    }
+
+    private static ByteBuffer freeHeader() {
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.put((byte) FREE);
+        buffer.putShort((short) 1);
+        return buffer.clear();
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of page file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private int capacity(int span) {
+        return span * pageSize - HEADER_SIZE;
+    }
+
+    private static int epicIdOf(Task task) {
+        return task.getType() == TaskType.SUBTASK ? task.getEpicId() : -1;
+    }
+
+    static final class Batch {
+        private final boolean replace;
+        private final List<PageWrite> writes = new ArrayList<>();
+        private int pageCount;
+
+        private Batch(boolean replace) {
+            this.replace = replace;
+        }
+    }
+
+    private record PageWrite(long position, ByteBuffer buffer) {
+    }
+
+    private static final class Entry {
+        private final Block block;
+        private int size;
+        private int epicId;
+
+        private Entry(Block block, int size, int epicId) {
+            this.block = block;
+            this.size = size;
+            this.epicId = epicId;
+        }
+    }
+
+    private static final class Block {
+        private final int index;
+        private final int span;
+        private final TaskType type;
+        private int[] ids = new int[8];
+        private int count;
+        private int used;
+
+        private Block(int index, int span, TaskType type) {
+            this.index = index;
+            this.span = span;
+            this.type = type;
+        }
+
+        // sorts after every block with at most the given used bytes, for floor lookups
+        private static Block probe(int used) {
+            final Block probe = new Block(Integer.MAX_VALUE, 1, null);
+            probe.used = used;
+            return probe;
+        }
+
+        private int index() {
+            return index;
+        }
+
+        private int used() {
+            return used;
+        }
+
+        private void add(int id) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count++] = id;
+        }
+
+        private void removeId(int id) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--count];
+                    return;
+                }
+            }
+        }
+    }
+}
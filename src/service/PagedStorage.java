@@ -0,0 +1,94 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Task;
+import model.TaskType;
+import util.IntObjectHashMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the tasks in a {@link PageStore}: a commit rewrites only the pages holding tasks changed since
+ * the previous one. An existing snapshot in another layout is converted to a page file on load.
+ */
+public class PagedStorage implements StorageEngine {
+
+    private final Path file;
+    private final PageStore pages;
+
+    public PagedStorage(Path file) {
+        this.file = file;
+        this.pages = new PageStore(file, PageStore.DEFAULT_PAGE_SIZE);
+    }
+
+    @Override
+    public void load(Consumer<Task> rows) {
+        if (pages.load(rows)) {
+            return;
+        }
+        final List<Task> imported = new ArrayList<>();
+        if (Files.exists(file)) {
+            try {
+                SnapshotFormat.detect(file).read(file, LoadMode.BUFFERED, imported::add);
+            } catch (IOException e) {
+                throw new ManagerLoadException("Error reading file!");
+            }
+        }
+        imported.forEach(rows);
+        try {
+            snapshot(imported);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error writing page file!");
+        }
+    }
+
+    @Override
+    public void append(Change change) {
+        switch (change.getKind()) {
+            case PUT -> pages.put(change.getTask());
+            case DELETE -> {
+                if (change.getTask() instanceof Epic epic) {
+                    epic.getSubtasks().forEach(subtask -> pages.remove(subtask.getId()));
+                }
+                pages.remove(change.getId());
+            }
+            case CLEAR -> {
+                pages.clear(change.getType());
+                if (change.getType() == TaskType.EPIC) {
+                    pages.clear(TaskType.SUBTASK);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Commit prepare(State state) {
+        final PageStore.Batch batch = pages.collect(state::lookup);
+        return () -> pages.write(batch);
+    }
+
+    /**
+     * Puts every row into the page store and writes it. Meant for an empty store, as after a failed load.
+     */
+    @Override
+    public void snapshot(List<Task> rows) throws IOException {
+        final IntObjectHashMap<Task> byId = new IntObjectHashMap<>(rows.size());
+        for (Task row : rows) {
+            byId.put(row.getId(), row);
+            pages.put(row);
+        }
+        pages.write(pages.collect(byId::get));
+    }
+
+    @Override
+    public void close() {
+        pages.close();
+    }
+}
@@ -0,0 +1,5 @@
+package service;
+
+public enum PersistenceMode {
+    SNAPSHOT, JOURNAL, PAGED
+}
@@ -0,0 +1,71 @@
+package service;
+
+/**
+ * Result of {@link FileBackedTaskManager#recover}: how much of a snapshot was kept and what was cut off.
+ */
+public final class RecoveryReport {
+
+    private final long keptRecords;
+    private final long droppedRecords;
+    private final long keptBytes;
+    private final long droppedBytes;
+    private final long firstInvalidLine;
+    private final String reason;
+
+    RecoveryReport(long keptRecords,
+                   long droppedRecords,
+                   long keptBytes,
+                   long droppedBytes,
+                   long firstInvalidLine,
+                   String reason) {
+        this.keptRecords = keptRecords;
+        this.droppedRecords = droppedRecords;
+        this.keptBytes = keptBytes;
+        this.droppedBytes = droppedBytes;
+        this.firstInvalidLine = firstInvalidLine;
+        this.reason = reason;
+    }
+
+    public boolean isIntact() {
+        return droppedBytes == 0;
+    }
+
+    public long getKeptRecords() {
+        return keptRecords;
+    }
+
+    public long getDroppedRecords() {
+        return droppedRecords;
+    }
+
+    public long getKeptBytes() {
+        return keptBytes;
+    }
+
+    public long getDroppedBytes() {
+        return droppedBytes;
+    }
+
+    /**
+     * Line number of the first row that was dropped, counting the header as line 1, or -1 if the file is intact.
+     */
+    public long getFirstInvalidLine() {
+        return firstInvalidLine;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryReport{" +
+                "keptRecords=" + keptRecords +
+                ", droppedRecords=" + droppedRecords +
+                ", keptBytes=" + keptBytes +
+                ", droppedBytes=" + droppedBytes +
+                ", firstInvalidLine=" + firstInvalidLine +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
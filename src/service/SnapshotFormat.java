@@ -0,0 +1,130 @@
+package service;
+
+import exceptions.FileOperationException;
+import model.Task;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Layout of a snapshot file. A file that starts with the binary magic is read as
+ * {@link #BINARY}, anything else as {@link #CSV}, and a manager keeps saving in the format it loaded.
+ * <p>
+ * Either layout may be wrapped in GZIP. Compression is recognized by its magic bytes,
+ * independently of the layout inside, and compressed files are always read as a stream.
+ */
+public enum SnapshotFormat {
+    CSV, BINARY;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static SnapshotFormat detect(Path file) {
+        if (!Files.exists(file)) {
+            return CSV;
+        }
+        try (InputStream in = open(file)) {
+            return BinaryTaskFormat.matches(in.readNBytes(BinaryTaskFormat.MAGIC_LENGTH)) ? BINARY : CSV;
+        } catch (IOException e) {
+            throw new FileOperationException("Error reading file: " + file);
+        }
+    }
+
+    public static boolean isCompressed(Path file) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return isGzip(in.readNBytes(2));
+        } catch (IOException e) {
+            throw new FileOperationException("Error reading file: " + file);
+        }
+    }
+
+    /**
+     * Rewrites a snapshot in the given format, the source format is detected.
+     */
+    public static void convert(Path source, Path target, SnapshotFormat format) {
+        final List<Task> rows = new ArrayList<>();
+        try {
+            detect(source).read(source, LoadMode.BUFFERED, rows::add);
+            try (OutputStream out = Files.newOutputStream(target)) {
+                format.write(out, rows);
+            }
+        } catch (IOException e) {
+            throw new FileOperationException("Error converting " + source + " to " + format);
+        }
+    }
+
+    /**
+     * Opens the file for reading, decompressing it if it starts with the GZIP magic.
+     */
+    static InputStream open(Path file) throws IOException {
+        final BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE);
+        in.mark(2);
+        final byte[] magic = in.readNBytes(2);
+        in.reset();
+        return isGzip(magic) ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    /**
+     * Wraps the stream in GZIP at the given {@link Deflater} level, {@link Deflater#NO_COMPRESSION} keeps it plain.
+     * The caller has to {@code finish} a returned {@link GZIPOutputStream} before syncing the file.
+     */
+    static OutputStream compress(OutputStream out, int level) throws IOException {
+        if (level == Deflater.NO_COMPRESSION) {
+            return out;
+        }
+        return new GZIPOutputStream(out, BUFFER_SIZE) {
+            {
+                def.setLevel(level);
+            }
+        };
+    }
+
+    /**
+     * Reads the rows in file order. Compressed files cannot be mapped, they are read as a stream in every load mode.
+     */
+    void read(Path file, LoadMode loadMode, Consumer<Task> consumer) throws IOException {
+        if (isCompressed(file)) {
+            try (InputStream in = open(file)) {
+                switch (this) {
+                    case CSV -> CsvTaskFormat.read(in, consumer);
+                    case BINARY -> BinaryTaskFormat.read(in, consumer);
+                }
+            }
+            return;
+        }
+        switch (this) {
+            case CSV -> {
+                switch (loadMode) {
+                    case BUFFERED -> CsvTaskFormat.read(file, consumer);
+                    case MAPPED, LAZY -> MappedCsvReader.read(file, consumer);
+                    case PARALLEL -> MappedCsvReader.readParallel(file, consumer);
+                }
+            }
+            case BINARY -> BinaryTaskFormat.read(file, consumer);
+        }
+    }
+
+    void write(OutputStream out, List<Task> rows) throws IOException {
+        switch (this) {
+            case CSV -> CsvTaskFormat.write(out, rows);
+            case BINARY -> BinaryTaskFormat.write(out, rows);
+        }
+    }
+
+    private static boolean isGzip(byte[] magic) {
+        return magic.length == 2 && ((magic[0] & 0xff) | (magic[1] & 0xff) << 8) == GZIP_MAGIC;
+    }
+}
@@ -0,0 +1,161 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import model.Task;
+import util.IntLongHashMap;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the tasks in one snapshot file that every commit rewrites as a whole.
+ * The file keeps the {@link SnapshotFormat} and compression it was found with, a new file is written as CSV.
+ */
+public class SnapshotStorage implements StorageEngine {
+
+    protected final Path file;
+
+    private final SnapshotFormat format;
+    private final LoadMode loadMode;
+
+    private volatile int compressionLevel;
+    private LazyRows lazyRows;
+
+    public SnapshotStorage(Path file) {
+        this(file, LoadMode.BUFFERED);
+    }
+
+    public SnapshotStorage(Path file, LoadMode loadMode) {
+        this(file, SnapshotFormat.detect(file), loadMode);
+    }
+
+    /**
+     * Writes new snapshots in the given format, whatever the existing file holds.
+     */
+    public SnapshotStorage(Path file, SnapshotFormat format, LoadMode loadMode) {
+        this.file = file;
+        this.format = format;
+        this.loadMode = loadMode;
+        this.compressionLevel = SnapshotFormat.isCompressed(file) ? Deflater.DEFAULT_COMPRESSION
+                : Deflater.NO_COMPRESSION;
+    }
+
+    /**
+     * Sets the {@link Deflater} level snapshots are written with from the next save on:
+     * {@link Deflater#NO_COMPRESSION} writes a plain file, 1 to 9 trade save time for size through GZIP.
+     */
+    public void setCompressionLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        this.compressionLevel = level;
+    }
+
+    /**
+     * A missing file is an empty board, it is created by the first commit.
+     */
+    @Override
+    public void load(Consumer<Task> rows) {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try {
+            final SnapshotFormat stored = SnapshotFormat.detect(file);
+            if (loadMode == LoadMode.LAZY && stored == SnapshotFormat.CSV && !SnapshotFormat.isCompressed(file)) {
+                final IntLongHashMap offsets = new IntLongHashMap();
+                final MappedCsvReader reader = MappedCsvReader.readSkeletons(file, (task, offset) -> {
+                    rows.accept(task);
+                    offsets.put(task.getId(), offset);
+                });
+                lazyRows = new LazyRows(reader, offsets);
+            } else {
+                stored.read(file, loadMode, rows);
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error reading file!");
+        }
+    }
+
+    @Override
+    public void append(Change change) {
+        if (change.getKind() != Change.Kind.CLEAR) {
+            forget(change.getId());
+        }
+    }
+
+    @Override
+    public Commit prepare(State state) {
+        final List<Task> rows = state.rows();
+        return () -> snapshot(rows);
+    }
+
+    /**
+     * Writes the rows to a temporary file and renames it over the snapshot, so a crash leaves
+     * either the previous snapshot or the new one, never a partly written file.
+     */
+    @Override
+    public void snapshot(List<Task> rows) throws IOException {
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        write(temp, rows);
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    @Override
+    public void materialize(Task task) {
+        if (lazyRows != null) {
+            lazyRows.materialize(task);
+            if (lazyRows.isEmpty()) {
+                lazyRows = null;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Drops the deferred text of a task that was replaced or removed, its row no longer describes it.
+     */
+    protected void forget(int id) {
+        if (lazyRows != null) {
+            lazyRows.forget(id);
+        }
+    }
+
+    // Makes the rename itself durable, not every platform can open a directory for that
+    private void syncDirectory() {
+        final Path directory = file.toAbsolutePath().getParent();
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // the data is on disk, only the directory entry may lag behind
+        }
+    }
+
+    private void write(Path target, List<Task> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            final OutputStream out = SnapshotFormat.compress(Channels.newOutputStream(channel), compressionLevel);
+            format.write(out, rows);
+            if (out instanceof GZIPOutputStream gzip) {
+                gzip.finish();
+            }
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package service;
+
+import model.Task;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Where a {@link FileBackedTaskManager} keeps its tasks. The manager calls {@link #append} for every
+ * mutation while holding its lock, and later makes a whole group of them durable at once:
+ * {@link #prepare} captures what has to be written, still under the lock, and the returned
+ * {@link Commit} writes it outside the lock. How many mutations one commit covers is decided by
+ * the manager's {@link DurabilityPolicy}.
+ * <p>
+ * On load the manager reads the stored rows with {@link #load} and restores them in one pass,
+ * then applies the changes logged after them with {@link #replay}.
+ */
+public interface StorageEngine extends AutoCloseable {
+
+    /**
+     * Reads every stored task, in any order.
+     */
+    void load(Consumer<Task> rows);
+
+    /**
+     * Reads the changes recorded after the rows returned by {@link #load}, in the order they happened.
+     */
+    default void replay(Consumer<Change> changes) {
+    }
+
+    /**
+     * Records a change, it becomes durable with the next commit.
+     */
+    void append(Change change);
+
+    /**
+     * Captures the changes appended so far. Engines that store whole snapshots read them from the state.
+     */
+    Commit prepare(State state);
+
+    /**
+     * Replaces everything stored with the given rows.
+     */
+    void snapshot(List<Task> rows) throws IOException;
+
+    /**
+     * Fills in fields of a loaded task that the engine has deferred reading, see {@link LoadMode#LAZY}.
+     */
+    default void materialize(Task task) {
+    }
+
+    @Override
+    void close();
+
+    /**
+     * The manager's current tasks, only valid during {@link #prepare}.
+     */
+    interface State {
+
+        /**
+         * Every task as rows that stay unchanged after the lock is released.
+         */
+        List<Task> rows();
+
+        Task lookup(int id);
+    }
+
+    interface Commit {
+
+        Commit NONE = () -> {
+        };
+
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,73 @@
+package service;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Creates, updates and deletes that {@link TaskManager#applyBatch} applies together: all of them or none.
+ * A task id may appear only once per batch, and subtasks can only refer to epics that exist before it.
+ */
+public final class TaskBatch {
+
+    public enum Kind {
+        CREATE, UPDATE, DELETE
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public TaskBatch create(Task task) {
+        operations.add(new Operation(Kind.CREATE, task, null));
+        return this;
+    }
+
+    public TaskBatch update(Task task) {
+        operations.add(new Operation(Kind.UPDATE, task, task.getId()));
+        return this;
+    }
+
+    public TaskBatch delete(int id) {
+        operations.add(new Operation(Kind.DELETE, null, id));
+        return this;
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public static final class Operation {
+
+        private final Kind kind;
+        private final Task task;
+        private final Integer id;
+
+        private Operation(Kind kind, Task task, Integer id) {
+            this.kind = kind;
+            this.task = task;
+            this.id = id;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The task to create or the new version to store, null for a delete.
+         */
+        public Task getTask() {
+            return task;
+        }
+
+        /**
+         * The id of the task to update or delete, null for a create.
+         */
+        public Integer getId() {
+            return id;
+        }
+    }
+}
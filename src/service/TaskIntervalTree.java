@@ -0,0 +1,269 @@
+package service;
+
+import model.Task;
+import util.IntObjectHashMap;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Balanced (AVL) search tree of task time intervals ordered by start time and id.
+ * Every node also keeps the latest end time of its subtree, so an overlap query
+ * can skip whole subtrees and runs in O(log n) instead of scanning every task.
+ * Tasks are removed by the start time they were indexed with, so a stored task whose
+ * start time was edited in place is still found.
+ */
+class TaskIntervalTree {
+
+    static final Comparator<Task> ORDER = Comparator.comparing(Task::getStartTime).thenComparing(Task::getId);
+
+    private final IntObjectHashMap<LocalDateTime> starts = new IntObjectHashMap<>();
+    private Node root;
+    private int size;
+
+    void add(Task task) {
+        root = insert(root, task);
+        starts.put(task.getId(), task.getStartTime());
+        size++;
+    }
+
+    void remove(Task task) {
+        final LocalDateTime start = starts.remove(task.getId());
+        if (start != null) {
+            root = delete(root, start, task.getId());
+        }
+    }
+
+    /**
+     * Replaces the contents with tasks already sorted by {@link #ORDER}, in O(n).
+     */
+    void rebuild(List<? extends Task> sorted) {
+        root = build(sorted, 0, sorted.size());
+        starts.clear();
+        sorted.forEach(task -> starts.put(task.getId(), task.getStartTime()));
+        size = sorted.size();
+    }
+
+    void removeAll(Collection<? extends Task> tasks) {
+        tasks.forEach(this::remove);
+    }
+
+    void clear() {
+        starts.clear();
+        root = null;
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns any indexed task whose interval intersects the interval of the given task,
+     * ignoring the indexed task with the same id, or {@code null} if there is none.
+     */
+    Task findOverlap(Task task) {
+        return findOverlap(root, task.getStartTime(), task.getEndTime(), task.getId());
+    }
+
+    /**
+     * Finds every pair of intersecting intervals among tasks sorted by start time with one sweep
+     * over a heap of the still open intervals, in O(n log n + k) for k pairs.
+     * Pairs are the ones {@link #findOverlap} rejects, so an empty interval intersects nothing.
+     */
+    static List<Task[]> findAllOverlaps(List<? extends Task> sorted) {
+        final List<Task[]> overlaps = new ArrayList<>();
+        final PriorityQueue<Task> open = new PriorityQueue<>(Comparator.comparing(Task::getEndTime));
+        for (Task task : sorted) {
+            while (!open.isEmpty() && !open.peek().getEndTime().isAfter(task.getStartTime())) {
+                open.poll();
+            }
+            // every open interval ends after this one starts, and starts no later than it does,
+            // which still leaves an open interval starting at the end of an empty one
+            for (Task other : open) {
+                if (other.getStartTime().isBefore(task.getEndTime())) {
+                    overlaps.add(new Task[]{other, task});
+                }
+            }
+            open.add(task);
+        }
+        return overlaps;
+    }
+
+    List<Task> toList() {
+        final List<Task> result = new ArrayList<>(size);
+        collect(root, result);
+        return result;
+    }
+
+    private Task findOverlap(Node node, LocalDateTime start, LocalDateTime end, Integer excludedId) {
+        if (node == null || !node.maxEnd.isAfter(start)) {
+            return null;
+        }
+        final Task found = findOverlap(node.left, start, end, excludedId);
+        if (found != null) {
+            return found;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (node.end.isAfter(start) && !Objects.equals(node.task.getId(), excludedId)) {
+            return node.task;
+        }
+        return findOverlap(node.right, start, end, excludedId);
+    }
+
+    private void collect(Node node, List<Task> result) {
+        if (node == null) {
+            return;
+        }
+        collect(node.left, result);
+        result.add(node.task);
+        collect(node.right, result);
+    }
+
+    private static Node build(List<? extends Task> sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        final int middle = (from + to) >>> 1;
+        final Node node = new Node(sorted.get(middle));
+        node.left = build(sorted, from, middle);
+        node.right = build(sorted, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private Node insert(Node node, Task task) {
+        if (node == null) {
+            return new Node(task);
+        }
+        if (compare(task.getStartTime(), task.getId(), node) < 0) {
+            node.left = insert(node.left, task);
+        } else {
+            node.right = insert(node.right, task);
+        }
+        return balance(node);
+    }
+
+    private Node delete(Node node, LocalDateTime start, Integer id) {
+        if (node == null) {
+            return null;
+        }
+        final int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.right = deleteMin(node.right);
+            successor.right = node.right;
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    private Node deleteMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int compare(LocalDateTime start, Integer id, Node node) {
+        final int cmp = start.compareTo(node.start);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Integer.compare(id == null ? Integer.MIN_VALUE : id, node.id);
+    }
+
+    private static Node balance(Node node) {
+        update(node);
+        final int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        final Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        final Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static class Node {
+        final Task task;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final int id;
+        LocalDateTime maxEnd;
+        int height = 1;
+        Node left;
+        Node right;
+
+        Node(Task task) {
+            this.task = task;
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.id = task.getId();
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package service;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of manager mutations, one text record per line.
+ * Each append costs one small write regardless of how many tasks the board holds.
+ * Appended records are buffered until {@link #flush()}, which writes and fsyncs them together.
+ * They stay buffered until the fsync succeeds, so a failed flush is retried by the next one.
+ * <p>
+ * Before a snapshot is taken the journal is rotated: the records written so far move to a
+ * {@code .old} segment that is deleted once the snapshot covering them is on disk.
+ * A crash in between leaves the segment in place and it is replayed again on load,
+ * which is harmless because every record overwrites state instead of modifying it.
+ */
+class TaskJournal implements AutoCloseable {
+
+    interface ChannelOpener {
+        FileChannel open(Path path) throws IOException;
+    }
+
+    private final Path path;
+    private final Path rotatedPath;
+    private final ChannelOpener opener;
+    private final StringBuilder pending = new StringBuilder();
+
+    private FileChannel channel;
+    private long records;
+    private long size;
+    // Bytes from the start of pending that a failed flush has already written
+    private int written;
+
+    TaskJournal(Path file) {
+        this(file, path -> FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND));
+    }
+
+    TaskJournal(Path file, ChannelOpener opener) {
+        this.path = file.resolveSibling(file.getFileName() + ".journal");
+        this.rotatedPath = file.resolveSibling(file.getFileName() + ".journal.old");
+        this.opener = opener;
+        open();
+    }
+
+    void replay(Consumer<String> consumer) {
+        replay(rotatedPath, consumer);
+        final long replayed = replay(path, consumer);
+        synchronized (pending) {
+            records = replayed;
+        }
+    }
+
+    void append(String record) {
+        synchronized (pending) {
+            pending.append(record).append('\n');
+            records++;
+            size += record.length() + 1;
+        }
+    }
+
+    boolean exceeds(long maxRecords, long maxSize) {
+        synchronized (pending) {
+            return records >= maxRecords || size >= maxSize;
+        }
+    }
+
+    synchronized void flush() throws IOException {
+        final String text;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            text = pending.toString();
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        buffer.position(written);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+            written = buffer.position();
+        }
+        channel.force(false);
+        synchronized (pending) {
+            pending.delete(0, text.length());
+        }
+        written = 0;
+    }
+
+    /**
+     * Moves the current records to the rotated segment and starts an empty journal.
+     * If an earlier rotated segment was never cleaned up the records are appended to it.
+     */
+    synchronized void rotate() {
+        try {
+            flush();
+            channel.close();
+            if (Files.exists(rotatedPath)) {
+                Files.write(rotatedPath, Files.readAllBytes(path), StandardOpenOption.APPEND);
+                Files.delete(path);
+            } else {
+                Files.move(path, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error rotating journal!");
+        }
+        open();
+    }
+
+    void deleteRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            flush();
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error closing journal!");
+        }
+    }
+
+    private void open() {
+        try {
+            channel = opener.open(path);
+            synchronized (pending) {
+                size = channel.size();
+                records = 0;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Error opening journal!");
+        }
+    }
+
+    private static long replay(Path path, Consumer<String> consumer) {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        long count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    consumer.accept(line);
+                    count++;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException("Error reading journal!");
+        }
+        return count;
+    }
+}
@@ -3,6 +3,7 @@ package service;
 import model.Epic;
 import model.Subtask;
 import model.Task;
+import model.TaskType;
 
 import java.util.List;
 
@@ -49,4 +50,33 @@ public interface TaskManager {
     void removeSubtaskById(Integer id);
 
     List<Subtask> getAllSubtasksEpic(Integer id);
+
+    /**
+     * Applies every operation of the batch, or none of them if any fails.
+     * Returns one task per operation: the created task with its id, the stored version after an update,
+     * or the removed task.
+     */
+    List<Task> applyBatch(TaskBatch batch);
+
+    /**
+     * Version stamp of all tasks, epics and subtasks. It grows with every change and never repeats.
+     */
+    long getVersion();
+
+    /**
+     * Stamp of the latest change of one collection, from the same clock as {@link #getVersion()}.
+     * A change of a subtask also changes the epic stamp, since it rolls up into its epic.
+     */
+    long getVersion(TaskType type);
+
+    /**
+     * Stamp of the latest change of one task, epic or subtask, from the same clock as {@link #getVersion()},
+     * or 0 if it has not changed since the manager was loaded. A change of a subtask also revises its epic.
+     */
+    long getRevision(int id);
+
+    /**
+     * Grows with every view recorded in or removed from the history.
+     */
+    long getHistoryVersion();
 }
@@ -0,0 +1,60 @@
+package service;
+
+import model.TaskType;
+import util.IntLongHashMap;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Version stamps of a manager. Every change takes a new stamp from one clock and records it
+ * for the collections it touched, so a collection's stamp is the stamp of its latest change.
+ * Managers tick after the change is done: a reader that takes the stamp before reading
+ * can see newer data than the stamp says, never older.
+ * The stamp of a change is also recorded as the revision of every task, epic and subtask it changed.
+ */
+final class VersionClock {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLongArray stamps = new AtomicLongArray(TaskType.values().length);
+    private final AtomicLong history = new AtomicLong();
+    private final IntLongHashMap revisions = new IntLongHashMap();
+
+    long tick(TaskType... types) {
+        final long stamp = clock.incrementAndGet();
+        for (TaskType type : types) {
+            stamps.accumulateAndGet(type.ordinal(), stamp, Math::max);
+        }
+        return stamp;
+    }
+
+    synchronized void revise(long stamp, int... ids) {
+        for (int id : ids) {
+            revisions.put(id, stamp);
+        }
+    }
+
+    synchronized void forget(int id) {
+        revisions.remove(id, 0);
+    }
+
+    void tickHistory() {
+        history.incrementAndGet();
+    }
+
+    long current() {
+        return clock.get();
+    }
+
+    long get(TaskType type) {
+        return stamps.get(type.ordinal());
+    }
+
+    synchronized long revision(int id) {
+        return revisions.get(id, 0);
+    }
+
+    long history() {
+        return history.get();
+    }
+}
@@ -2,9 +2,15 @@ package util;
 
 
 import adapters.DurationAdapter;
+import adapters.EpicAdapter;
 import adapters.LocalDateTimeAdapter;
+import adapters.SubtaskAdapter;
+import adapters.TaskAdapter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import model.Epic;
+import model.Subtask;
+import model.Task;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -14,7 +20,9 @@ public class GsonFactory {
         return new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
-                .excludeFieldsWithoutExposeAnnotation()
+                .registerTypeAdapter(Task.class, new TaskAdapter())
+                .registerTypeAdapter(Epic.class, new EpicAdapter())
+                .registerTypeAdapter(Subtask.class, new SubtaskAdapter())
                 .create();
     }
 }
\ No newline at end of file
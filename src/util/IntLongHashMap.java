@@ -0,0 +1,159 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive {@code int} keys to primitive {@code long} values,
+ * laid out like {@link IntObjectHashMap}: parallel arrays, Robin Hood linear probing, no boxing.
+ * A separate occupancy array marks used slots, so every {@code long} is a valid value.
+ */
+public class IntLongHashMap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int threshold;
+
+    public IntLongHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntLongHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+    }
+
+    public long get(int key, long defaultValue) {
+        final int slot = find(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public void put(int key, long value) {
+        final int slot = find(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        insert(key, value);
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+    }
+
+    public long remove(int key, long defaultValue) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return defaultValue;
+        }
+        final long previous = values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Robin Hood order: a key is never stored past a slot whose key is closer to its home
+    private int find(int key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int distance = 0;
+        while (used[slot] && distance <= distance(slot, mask)) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones,
+    // it stops at the first key that already sits in its home slot
+    private void shiftBack(int slot) {
+        final int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (used[next] && distance(next, mask) > 0) {
+            keys[gap] = keys[next];
+            values[gap] = values[next];
+            gap = next;
+            next = (next + 1) & mask;
+        }
+        used[gap] = false;
+    }
+
+    private int distance(int slot, int mask) {
+        return (slot - hash(keys[slot])) & mask;
+    }
+
+    // Robin Hood insertion: a key further from its home takes the slot and the displaced key moves on
+    private void insert(int key, long value) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int distance = 0;
+        while (used[slot]) {
+            final int existing = distance(slot, mask);
+            if (existing < distance) {
+                final int displacedKey = keys[slot];
+                final long displacedValue = values[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                key = displacedKey;
+                value = displacedValue;
+                distance = existing;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+    }
+
+    private void resize(int capacity) {
+        final int[] oldKeys = keys;
+        final long[] oldValues = values;
+        final boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (oldUsed[i]) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.max(n, 2);
+    }
+}
@@ -0,0 +1,189 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Open-addressing hash map from primitive {@code int} keys to non-null values.
+ * Keys and values live in two parallel arrays with Robin Hood linear probing, so there is no
+ * boxed key and no entry object per mapping, and runs of sequential keys do not slow down removal. The hash spreads keys the same way
+ * {@link java.util.HashMap} does, which keeps dense ids iterating in ascending order.
+ */
+public class IntObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int threshold;
+
+    public IntObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectHashMap(int expectedSize) {
+        allocate(tableSizeFor((int) Math.ceil(expectedSize / LOAD_FACTOR)));
+    }
+
+    public V get(int key) {
+        final int slot = find(key);
+        return slot < 0 ? null : value(slot);
+    }
+
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        final int slot = find(key);
+        if (slot >= 0) {
+            final V previous = value(slot);
+            values[slot] = value;
+            return previous;
+        }
+        insert(key, value);
+        if (++size > threshold) {
+            resize(keys.length << 1);
+        }
+        return null;
+    }
+
+    public V remove(int key) {
+        final int slot = find(key);
+        if (slot < 0) {
+            return null;
+        }
+        final V previous = value(slot);
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] keys() {
+        final int[] result = new int[size];
+        int index = 0;
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                result[index++] = keys[slot];
+            }
+        }
+        return result;
+    }
+
+    public List<V> values() {
+        final List<V> result = new ArrayList<>(size);
+        for (int slot = 0; slot < values.length; slot++) {
+            if (values[slot] != null) {
+                result.add(value(slot));
+            }
+        }
+        return result;
+    }
+
+    // Robin Hood order: a key is never stored past a slot whose key is closer to its home
+    private int find(int key) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int distance = 0;
+        while (values[slot] != null && distance <= distance(slot, mask)) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        return -1;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones,
+    // it stops at the first key that already sits in its home slot
+    private void shiftBack(int slot) {
+        final int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (values[next] != null && distance(next, mask) > 0) {
+            keys[gap] = keys[next];
+            values[gap] = values[next];
+            gap = next;
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private int distance(int slot, int mask) {
+        return (slot - hash(keys[slot])) & mask;
+    }
+
+    // Robin Hood insertion: a key further from its home takes the slot and the displaced key moves on
+    private void insert(int key, Object value) {
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int distance = 0;
+        while (values[slot] != null) {
+            final int existing = distance(slot, mask);
+            if (existing < distance) {
+                final int displacedKey = keys[slot];
+                final Object displacedValue = values[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                key = displacedKey;
+                value = displacedValue;
+                distance = existing;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private void resize(int capacity) {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return (V) values[slot];
+    }
+
+    private static int hash(int key) {
+        return key ^ (key >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        final int n = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        return Math.max(n, 2);
+    }
+}
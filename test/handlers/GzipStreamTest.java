@@ -0,0 +1,42 @@
+package handlers;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+@DisplayName("GzipStreamTest")
+class GzipStreamTest {
+
+    @Test
+    @DisplayName("Должен проверять, что поток пишет GZIP, который читает GZIPInputStream")
+    void shouldCheckGzipRoundTrip() throws IOException {
+        final Random random = new Random(25);
+        for (int size : new int[]{0, 1, 1_000, 100_000}) {
+            final byte[] data = new byte[size];
+            for (int i = 0; i < size; i++) {
+                data[i] = (byte) ('a' + random.nextInt(random.nextBoolean() ? 3 : 26));
+            }
+            // the same thread reuses its deflater, every stream has to start clean
+            for (int level : new int[]{Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION}) {
+                final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                try (GzipStream out = new GzipStream(compressed, level)) {
+                    if (size > 0) {
+                        out.write(data[0]);
+                        out.write(data, 1, size - 1);
+                    }
+                }
+                try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+                    assertArrayEquals(data, in.readAllBytes());
+                }
+            }
+        }
+    }
+}
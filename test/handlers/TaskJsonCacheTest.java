@@ -0,0 +1,70 @@
+package handlers;
+
+import model.Epic;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import util.GsonFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("TaskJsonCacheTest")
+class TaskJsonCacheTest {
+
+    @Test
+    @DisplayName("Должен проверять, что кэш отдает JSON только для той же ревизии задачи")
+    void shouldCheckStaleEntries() {
+        final TaskJsonCache cache = new TaskJsonCache(GsonFactory.createGson(), 1024 * 1024);
+        final Task task = new Task(1, "Task", "Description", TaskStatus.NEW, "26.06.2024, 22:00:00", 15);
+        final Task task2 = new Task(2, "Task2", "Description", TaskStatus.NEW, "26.06.2024, 18:00:00", 15);
+
+        final byte[] json = cache.get(task, 5, 0);
+        final byte[] json2 = cache.get(task2, 5, 0);
+        assertSame(json, cache.get(task, 5, 0));
+
+        task.setStatus(TaskStatus.DONE);
+        final byte[] updated = cache.get(task, 6, 6);
+        assertNotSame(json, updated);
+        assertTrue(new String(updated).contains("DONE"));
+        assertSame(json2, cache.get(task2, 6, 0));
+
+        final Task copy = new Task(1, "Task", "Description", TaskStatus.DONE, "26.06.2024, 22:00:00", 15);
+        assertSame(updated, cache.get(copy, 7, 6));
+        assertNotSame(updated, cache.get(copy, 7, 7));
+        assertEquals(3, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что задача, измененная во время чтения, не попадает в кэш")
+    void shouldCheckTaskRevisedDuringRead() {
+        final TaskJsonCache cache = new TaskJsonCache(GsonFactory.createGson(), 1024 * 1024);
+        final Task task = new Task(1, "Task", "Description", TaskStatus.NEW, "26.06.2024, 22:00:00", 15);
+
+        final byte[] json = cache.get(task, 4, 5);
+        assertNotSame(json, cache.get(task, 5, 5));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    @DisplayName("Должен проверять вытеснение давно не использованных задач по размеру")
+    void shouldCheckEviction() {
+        final TaskJsonCache cache = new TaskJsonCache(GsonFactory.createGson(), 2_000);
+        final Epic[] epics = new Epic[20];
+        for (int i = 0; i < epics.length; i++) {
+            epics[i] = new Epic(i, "Epic" + i, "Description");
+            cache.get(epics[i], 1, 0);
+            cache.get(epics[0], 1, 0);
+            assertTrue(cache.getBytes() <= 2_000);
+        }
+        final long hits = cache.getHits();
+        cache.get(epics[0], 1, 0);
+        assertEquals(hits + 1, cache.getHits());
+        cache.get(epics[1], 1, 0);
+        assertEquals(hits + 1, cache.getHits());
+    }
+}
@@ -0,0 +1,92 @@
+package model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DisplayName("EpicTest")
+class EpicTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0, 0);
+
+    @Test
+    @DisplayName("Должен проверять, что статус и время эпика совпадают с полным пересчетом по подзадачам")
+    void shouldMatchFullRecomputeAfterRandomChanges() {
+        final Random random = new Random(42);
+
+        for (int round = 0; round < 100; round++) {
+            final Epic epic = new Epic(1, "Epic", "Description");
+            final List<Subtask> subtasks = new ArrayList<>();
+            int nextId = 2;
+
+            for (int step = 0; step < 200; step++) {
+                final int action = random.nextInt(10);
+                if (action < 5 || subtasks.isEmpty()) {
+                    final Subtask subtask = randomSubtask(random, nextId++);
+                    epic.addSubtask(subtask);
+                    subtasks.add(subtask);
+                } else if (action < 8) {
+                    final int index = random.nextInt(subtasks.size());
+                    final Subtask updated = randomSubtask(random, subtasks.get(index).getId());
+                    epic.removeSubtask(subtasks.get(index));
+                    epic.addSubtask(updated);
+                    subtasks.set(index, updated);
+                } else if (action < 9) {
+                    epic.removeSubtask(subtasks.remove(random.nextInt(subtasks.size())));
+                } else {
+                    epic.removeAllSubtasks();
+                    subtasks.clear();
+                }
+                assertRollupMatchesRecompute(subtasks, epic);
+            }
+        }
+    }
+
+    private static Subtask randomSubtask(Random random, int id) {
+        final TaskStatus status = TaskStatus.values()[random.nextInt(TaskStatus.values().length)];
+        return new Subtask(id, 1, "Subtask" + id, "Description", status,
+                START.plusMinutes(random.nextInt(1000)), Duration.ofMinutes(random.nextInt(60)));
+    }
+
+    private static void assertRollupMatchesRecompute(List<Subtask> subtasks, Epic epic) {
+        LocalDateTime startTime = null;
+        LocalDateTime endTime = null;
+        Duration duration = Duration.ZERO;
+        for (Subtask subtask : subtasks) {
+            if (startTime == null || subtask.getStartTime().isBefore(startTime)) {
+                startTime = subtask.getStartTime();
+            }
+            if (endTime == null || subtask.getEndTime().isAfter(endTime)) {
+                endTime = subtask.getEndTime();
+            }
+            duration = duration.plus(subtask.getDuration());
+        }
+
+        final Set<TaskStatus> uniqueStatus = subtasks.stream()
+                .map(Subtask::getStatus)
+                .collect(Collectors.toSet());
+        final TaskStatus status;
+        if (uniqueStatus.isEmpty()) {
+            status = TaskStatus.NEW;
+        } else if (uniqueStatus.size() == 1) {
+            status = uniqueStatus.iterator().next();
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+
+        assertEquals(status, epic.getSubtasksStatus());
+        assertEquals(startTime, epic.getSubtasksStartTime());
+        assertEquals(endTime, epic.getSubtasksEndTime());
+        assertEquals(duration, epic.getSubtasksDuration());
+        assertEquals(subtasks.size(), epic.getSubtasks().size());
+    }
+}
@@ -1,6 +1,8 @@
 package server;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import exceptions.NotFoundException;
 import model.Epic;
@@ -15,16 +17,25 @@ import service.Managers;
 import service.TaskManager;
 import util.GsonFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayName("HttpTaskServerTest")
 public class HttpTaskServerTest {
@@ -35,6 +46,7 @@ public class HttpTaskServerTest {
     private static final String SUBTASKS_ENDPOINT = "subtasks/";
     private static final String PRIORITIZED_ENDPOINT = "prioritized";
     private static final String HISTORY_ENDPOINT = "history";
+    private static final String BATCH_ENDPOINT = "batch";
 
     TaskManager manager;
     HttpTaskServer taskServer;
@@ -265,6 +277,20 @@ public class HttpTaskServerTest {
         assertEqualsTask(updatedSubtask, subtaskFromManager);
     }
 
+    @Test
+    @DisplayName("Должен проверять, что подзадача без эпика не найдена")
+    void shouldCheckAdditionSubtaskWithoutEpic() throws IOException, InterruptedException {
+        manager.createEpic(epic);
+        Subtask subtaskWithoutEpic = new Subtask(null, "Subtask", "Description", TaskStatus.NEW,
+                "26.06.2024, 20:00:00", 15);
+
+        HttpResponse<String> response = getResponse(gson.toJson(subtaskWithoutEpic), SUBTASKS_ENDPOINT,
+                MethodType.POST);
+
+        assertEquals(404, response.statusCode());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+    }
+
     @Test
     @DisplayName("Должен проверять удаление подзадачи по id")
     void shouldCheckDeletionSubtaskById() throws IOException, InterruptedException {
@@ -313,6 +339,214 @@ public class HttpTaskServerTest {
         assertEqualsListTasks(manager.getHistory(), listHistoryFromServer);
     }
 
+    @Test
+    @DisplayName("Должен проверять применение пакета операций одним запросом")
+    void shouldCheckBatch() throws IOException, InterruptedException {
+        manager.createEpic(epic);
+        manager.createTask(task);
+        final String body = "[" +
+                "{\"op\":\"create\",\"type\":\"task\",\"task\":" + gson.toJson(task2) + "}," +
+                "{\"op\":\"create\",\"type\":\"subtask\",\"task\":" + gson.toJson(subtask) + "}," +
+                "{\"op\":\"create\",\"type\":\"epic\",\"task\":" + gson.toJson(epic2) + "}," +
+                "{\"op\":\"delete\",\"id\":" + task.getId() + "}]";
+
+        HttpResponse<String> response = getResponse(body, BATCH_ENDPOINT, MethodType.POST);
+
+        assertEquals(200, response.statusCode());
+        final JsonArray results = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(4, results.size());
+        assertEquals("delete", results.get(3).getAsJsonObject().get("op").getAsString());
+        final Task created = gson.fromJson(results.get(0).getAsJsonObject().get("task"), Task.class);
+        assertEqualsTask(manager.getTaskById(created.getId()), created);
+        assertEquals(1, manager.getAllTasks().size());
+        assertEquals(1, manager.getAllSubtasks().size());
+        assertEquals(2, manager.getAllEpics().size());
+
+        final String overlapping = "[" +
+                "{\"op\":\"create\",\"type\":\"task\",\"task\":" + gson.toJson(task) + "}," +
+                "{\"op\":\"create\",\"type\":\"task\",\"task\":" + gson.toJson(task) + "}]";
+        response = getResponse(overlapping, BATCH_ENDPOINT, MethodType.POST);
+        assertEquals(406, response.statusCode());
+        assertEquals(1, manager.getAllTasks().size());
+
+        response = getResponse("[{\"op\":\"move\"}]", BATCH_ENDPOINT, MethodType.POST);
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что ответы отражают изменения задач и эпиков")
+    void shouldCheckCachedResponsesFollowChanges() throws IOException, InterruptedException {
+        manager.createEpic(epic);
+        manager.createTask(task);
+        getResponse(null, TASKS_ENDPOINT + task.getId(), MethodType.GET);
+        getResponse(null, EPICS_ENDPOINT, MethodType.GET);
+
+        final Task updated = new Task(task.getId(), "Updated", "Description", TaskStatus.DONE,
+                "26.06.2024, 22:00:00", 15);
+        manager.updateTask(updated);
+        manager.createSubtask(subtask);
+
+        HttpResponse<String> response = getResponse(null, TASKS_ENDPOINT + task.getId(), MethodType.GET);
+        assertEqualsTask(updated, gson.fromJson(response.body(), Task.class));
+
+        response = getResponse(null, EPICS_ENDPOINT, MethodType.GET);
+        final List<Epic> epics = gson.fromJson(response.body(), new TypeToken<List<Epic>>() {}.getType());
+        assertEquals(subtask.getStartTime(), epics.get(0).getStartTime());
+        assertEquals(subtask.getEndTime(), epics.get(0).getEndTime());
+
+        getResponse(null, SUBTASKS_ENDPOINT + subtask.getId(), MethodType.GET);
+        final Subtask stored = manager.getSubtaskById(subtask.getId());
+        stored.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(stored);
+        response = getResponse(null, SUBTASKS_ENDPOINT + subtask.getId(), MethodType.GET);
+        assertEquals(TaskStatus.DONE, gson.fromJson(response.body(), Subtask.class).getStatus());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что ответ на обновление содержит новую задачу, а не закэшированную")
+    void shouldCheckUpdateResponseAfterCachedGet() throws IOException, InterruptedException {
+        manager.createTask(task);
+        HttpResponse<String> response = getResponse(null, TASKS_ENDPOINT + task.getId(), MethodType.GET);
+        assertEquals("Task1", gson.fromJson(response.body(), Task.class).getName());
+
+        final Task updated = new Task(task.getId(), "Task1-updated", "Description", TaskStatus.DONE,
+                "26.06.2024, 22:00:00", 15);
+        response = getResponse(gson.toJson(updated), TASKS_ENDPOINT + task.getId(), MethodType.POST);
+        assertEquals(201, response.statusCode());
+        assertEqualsTask(updated, gson.fromJson(response.body(), Task.class));
+
+        response = getResponse(null, TASKS_ENDPOINT + task.getId(), MethodType.GET);
+        assertEqualsTask(updated, gson.fromJson(response.body(), Task.class));
+    }
+
+    @Test
+    @DisplayName("Должен проверять условные запросы по ETag")
+    void shouldCheckConditionalGet() throws IOException, InterruptedException {
+        manager.createTask(task);
+        HttpResponse<String> response = getResponse(null, TASKS_ENDPOINT, MethodType.GET);
+        final String etag = response.headers().firstValue("ETag").orElseThrow();
+
+        response = getConditionalResponse(TASKS_ENDPOINT, "W/\"other\", " + etag);
+        assertEquals(304, response.statusCode());
+        assertEquals("", response.body());
+
+        manager.createTask(task2);
+        response = getConditionalResponse(TASKS_ENDPOINT, etag);
+        assertEquals(200, response.statusCode());
+        assertEquals(2, JsonParser.parseString(response.body()).getAsJsonArray().size());
+
+        final String historyTag = getResponse(null, HISTORY_ENDPOINT, MethodType.GET)
+                .headers().firstValue("ETag").orElseThrow();
+        assertEquals(304, getConditionalResponse(HISTORY_ENDPOINT, historyTag).statusCode());
+        manager.getTaskById(task.getId());
+        assertEquals(200, getConditionalResponse(HISTORY_ENDPOINT, historyTag).statusCode());
+    }
+
+    @Test
+    @DisplayName("Должен проверять сжатие больших ответов по Accept-Encoding")
+    void shouldCheckGzipNegotiation() throws IOException, InterruptedException {
+        manager.createTask(task);
+        HttpResponse<byte[]> response = getEncodedResponse(TASKS_ENDPOINT, "gzip");
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(1, JsonParser.parseString(new String(response.body(), StandardCharsets.UTF_8))
+                .getAsJsonArray().size());
+
+        for (int i = 0; i < 50; i++) {
+            manager.createTask(new Task("Task" + (i + 3), "Description", TaskStatus.NEW,
+                    String.format("%02d.07.2024, %02d:00:00", i % 25 + 1, i / 25 * 12), 15));
+        }
+        response = getEncodedResponse(TASKS_ENDPOINT, "deflate, gzip;q=0.5");
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+        final String json;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        final List<Task> tasks = gson.fromJson(json, new TypeToken<List<Task>>() {}.getType());
+        assertEqualsListTasks(manager.getAllTasks(), tasks);
+        assertTrue(response.body().length < json.length());
+
+        response = getEncodedResponse(TASKS_ENDPOINT, "gzip;q=0");
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(json, new String(response.body(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Должен проверять параллельные запросы в режиме DISPATCHER")
+    void shouldHandleConcurrentRequestsOnDispatcher() {
+        restartServer(ExecutorMode.DISPATCHER);
+        assertHandlesConcurrentRequests();
+    }
+
+    @Test
+    @DisplayName("Должен проверять параллельные запросы в режиме FIXED_POOL")
+    void shouldHandleConcurrentRequestsOnFixedPool() {
+        restartServer(ExecutorMode.FIXED_POOL);
+        assertHandlesConcurrentRequests();
+    }
+
+    @Test
+    @DisplayName("Должен проверять параллельные запросы в режиме VIRTUAL_THREADS")
+    void shouldHandleConcurrentRequestsOnVirtualThreads() {
+        restartServer(ExecutorMode.VIRTUAL_THREADS);
+        assertHandlesConcurrentRequests();
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что остановка сервера завершает его пул потоков")
+    void shouldShutDownExecutorOnStop() throws IOException, InterruptedException {
+        assertNull(taskServer.getExecutor());
+        for (ExecutorMode mode : List.of(ExecutorMode.FIXED_POOL, ExecutorMode.VIRTUAL_THREADS)) {
+            restartServer(mode);
+            assertEquals(200, getResponse(null, TASKS_ENDPOINT, MethodType.GET).statusCode());
+            final ExecutorService executor = taskServer.getExecutor();
+            assertFalse(executor.isShutdown());
+
+            taskServer.stop();
+            assertTrue(executor.isShutdown());
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            taskServer = new HttpTaskServer(manager);
+            taskServer.start();
+        }
+    }
+
+    private void restartServer(ExecutorMode mode) {
+        taskServer.stop();
+        manager = Managers.getDefaultConcurrent();
+        taskServer = new HttpTaskServer(manager, mode, 4, 64);
+        taskServer.start();
+    }
+
+    // Creates tasks with parallel requests, then reads them back the same way
+    private void assertHandlesConcurrentRequests() {
+        final int count = 40;
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            final List<CompletableFuture<HttpResponse<String>>> created = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                final Task newTask = new Task("Task" + i, "Description", TaskStatus.NEW,
+                        String.format("%02d.08.2024, %02d:00:00", i % 20 + 1, i / 20 * 12), 15);
+                created.add(client.sendAsync(HttpRequest.newBuilder(URI.create(BASE_URL + TASKS_ENDPOINT))
+                        .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(newTask)))
+                        .build(), HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : created) {
+                assertEquals(201, response.join().statusCode());
+            }
+
+            final List<CompletableFuture<HttpResponse<String>>> lists = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                lists.add(client.sendAsync(HttpRequest.newBuilder(URI.create(BASE_URL + TASKS_ENDPOINT)).build(),
+                        HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : lists) {
+                assertEquals(200, response.join().statusCode());
+                assertEquals(count, JsonParser.parseString(response.join().body()).getAsJsonArray().size());
+            }
+        }
+        final List<Task> tasks = manager.getAllTasks();
+        assertEquals(count, tasks.size());
+        assertEquals(count, tasks.stream().map(Task::getId).distinct().count());
+    }
+
     private HttpResponse<String> getResponse(String requestBody, String path, MethodType method) throws IOException,
             InterruptedException {
         try (HttpClient client = HttpClient.newHttpClient()) {
@@ -330,6 +564,31 @@ public class HttpTaskServerTest {
         }
     }
 
+    private HttpResponse<String> getConditionalResponse(String path, String etag)
+            throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + path))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofString());
+        }
+    }
+
+
+    private HttpResponse<byte[]> getEncodedResponse(String path, String acceptEncoding)
+            throws IOException, InterruptedException {
+        final HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + path))
+                .header("Accept-Encoding", acceptEncoding)
+                .GET()
+                .build();
+        try (HttpClient client = HttpClient.newHttpClient()) {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+    }
+
     private static void assertEqualsListTasks(List<? extends Task> expected, List<? extends Task> actual) {
         assertEquals(expected.size(), actual.size());
         for (int i = 0; i < expected.size(); i++) {
@@ -0,0 +1,115 @@
+package service;
+
+import exceptions.ValidationException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("ConcurrentTaskManagerTest")
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+
+    @BeforeEach
+    void beforeEach() {
+        super.setUp();
+    }
+
+    @Override
+    protected ConcurrentTaskManager createTaskManager() {
+        return new ConcurrentTaskManager(historyManager);
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что параллельное создание задач не нарушает уникальность id и пересечения")
+    void shouldKeepInvariantsUnderConcurrentCreation() throws InterruptedException {
+        final int threads = 8;
+        final int tasksPerThread = 500;
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int thread = 0; thread < threads; thread++) {
+            executor.submit(() -> {
+                for (int i = 0; i < tasksPerThread; i++) {
+                    final Task task = new Task(null, "Task", "Description", TaskStatus.NEW,
+                            start.plusMinutes(i * 10L), Duration.ofMinutes(10));
+                    try {
+                        manager.createTask(task);
+                    } catch (ValidationException ignored) {
+                        // another thread has already taken this slot
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+
+        final List<Task> tasks = manager.getAllTasks();
+        final Set<Integer> ids = tasks.stream().map(Task::getId).collect(Collectors.toSet());
+        assertEquals(2 + tasksPerThread, tasks.size());
+        assertEquals(tasks.size(), ids.size());
+
+        final List<Task> prioritized = manager.getPrioritizedTasks();
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()));
+        }
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что читатели видят согласованный эпик во время изменения его подзадач")
+    void shouldReturnConsistentEpicsUnderConcurrentUpdates() throws Exception {
+        final int rounds = 5_000;
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    final TaskStatus status = i % 2 == 0 ? TaskStatus.DONE : TaskStatus.NEW;
+                    for (Subtask stored : List.of(subtask, subtask2)) {
+                        manager.updateSubtask(new Subtask(stored.getId(), epic.getId(), stored.getName(),
+                                stored.getDescription(), status, stored.getStartTime(),
+                                Duration.ofMinutes(5 + i % 10)));
+                    }
+                    manager.createEpic(new Epic("Epic", "Description"));
+                }
+            });
+            final List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 3; thread++) {
+                readers.add(executor.submit(() -> {
+                    while (!writer.isDone()) {
+                        final Epic read = manager.getEpicById(epic.getId());
+                        assertEquals(read.getSubtasksStatus(), read.getStatus());
+                        assertEquals(read.getSubtasksDuration(), read.getDuration());
+                        assertEquals(read.getSubtasksEndTime(), read.getEndTime());
+                    }
+                }));
+            }
+            writer.get(1, TimeUnit.MINUTES);
+            for (Future<?> reader : readers) {
+                reader.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final List<Epic> epics = manager.getAllEpics();
+        assertEquals(2 + rounds, epics.size());
+        assertEquals(epics.size(), epics.stream().map(Task::getId).collect(Collectors.toSet()).size());
+    }
+}
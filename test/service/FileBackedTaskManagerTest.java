@@ -1,7 +1,11 @@
 package service;
 
 import exceptions.FileOperationException;
+import exceptions.ManagerLoadException;
+import model.Epic;
+import model.Subtask;
 import model.Task;
+import model.TaskStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -9,9 +13,19 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DisplayName("FileBackedTaskManagerTest")
 public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
@@ -53,6 +67,381 @@ public class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskMan
         assertEqualsListTasks(manager.getAllSubtasks(), loadedTaskManager.getAllSubtasks());
     }
 
+    @Test
+    @DisplayName("Должен проверять восстановление состояния из базового снимка и журнала")
+    void shouldCheckLoadingFromSnapshotAndJournal() {
+        final FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        final Task task3 = journaled.createTask(new Task("Task3", "Description", TaskStatus.NEW,
+                "27.06.2024, 10:00:00", 15));
+        journaled.updateTask(new Task(task.getId(), "newTask", "newDescription", TaskStatus.DONE,
+                "27.06.2024, 12:00:00", 30));
+        journaled.removeTaskById(task2.getId());
+        journaled.updateSubtask(new Subtask(subtask.getId(), epic.getId(), "newSubtask", "Description",
+                TaskStatus.DONE, "26.06.2024, 20:00:00", 15));
+        journaled.removeEpicById(epic2.getId());
+        journaled.close();
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEqualsListTasks(journaled.getAllTasks(), loaded.getAllTasks());
+        assertEqualsListTasks(journaled.getAllEpics(), loaded.getAllEpics());
+        assertEqualsListTasks(journaled.getAllSubtasks(), loaded.getAllSubtasks());
+        assertEqualsListTasks(journaled.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+        assertEquals(task3.getId() + 1, loaded.createEpic(new Epic("Epic3", "Description")).getId());
+        loaded.close();
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что журнал сжимается в снимок без потери состояния")
+    void shouldCheckJournalCompaction() throws IOException {
+        final FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        journaled.setCompactionThreshold(5, Long.MAX_VALUE);
+        for (int i = 0; i < 23; i++) {
+            journaled.updateTask(new Task(task.getId(), "Task" + i, "Description", TaskStatus.IN_PROGRESS,
+                    "27.06.2024, 10:00:00", i + 1));
+        }
+        journaled.removeAllSubtasksFromManager();
+        journaled.close();
+
+        final Path journal = file.resolveSibling(file.getFileName() + ".journal");
+        assertTrue(Files.readAllLines(journal).size() < 24);
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".journal.old")));
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEqualsListTasks(journaled.getAllTasks(), loaded.getAllTasks());
+        assertEqualsListTasks(journaled.getAllEpics(), loaded.getAllEpics());
+        assertEquals(0, loaded.getAllSubtasks().size());
+        loaded.close();
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что групповая фиксация сохраняет все параллельные изменения")
+    void shouldCheckGroupCommitOfConcurrentMutations() throws InterruptedException {
+        final FileBackedTaskManager journaled = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL,
+                DurabilityPolicy.groupCommit(5, 16));
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 200; i++) {
+            final int slot = i;
+            executor.submit(() -> journaled.createTask(new Task(null, "Task" + slot, "Description",
+                    TaskStatus.NEW, start.plusMinutes(slot * 10L), Duration.ofMinutes(10))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+        journaled.close();
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals(202, loaded.getAllTasks().size());
+        assertEqualsListTasks(journaled.getAllTasks(), loaded.getAllTasks());
+        loaded.close();
+    }
+
+    @Test
+    @DisplayName("Должен проверять конвертацию снимка в бинарный формат и обратно")
+    void shouldCheckBinarySnapshotConversion() throws IOException {
+        final Path binary = Files.createTempFile("testFile", "bin");
+        final Path csv = Files.createTempFile("testFile", "csv");
+        SnapshotFormat.convert(file, binary, SnapshotFormat.BINARY);
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(binary));
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(binary);
+        assertEqualsListTasks(manager.getAllTasks(), loaded.getAllTasks());
+        assertEqualsListTasks(manager.getAllEpics(), loaded.getAllEpics());
+        assertEqualsListTasks(manager.getAllSubtasks(), loaded.getAllSubtasks());
+
+        loaded.removeTaskById(task.getId());
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(binary));
+        assertEquals(manager.getAllTasks().size() - 1,
+                FileBackedTaskManager.loadFromFile(binary).getAllTasks().size());
+
+        SnapshotFormat.convert(file, csv, SnapshotFormat.BINARY);
+        SnapshotFormat.convert(csv, csv, SnapshotFormat.CSV);
+        assertEquals(Files.readAllLines(file), Files.readAllLines(csv));
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что загрузка через отображение файла совпадает с построчной")
+    void shouldCheckMappedLoadingMatchesBuffered() throws IOException {
+        Files.writeString(file, "id,type,name,status,description,epic,duration,startTime\r\n"
+                + "1,TASK,Задача,DONE,Описание,null,PT1H30M,2024-06-27T10:00\r\n"
+                + "2,TASK,Task2,IN_PROGRESS,Description,null,PT0S,2024-06-27T12:00:05.25\r\n"
+                + "3,EPIC,Epic,NEW,Description,null,PT0S,null\r\n"
+                + "4,EPIC,Epic2,DONE,Description,null,PT12.5S,2024-06-28T08:00:00\r\n"
+                + "5,SUBTASK,Subtask,DONE,Description,4,PT12.5S,2024-06-28T08:00:00\r\n");
+
+        final FileBackedTaskManager buffered = FileBackedTaskManager.loadFromFile(file, LoadMode.BUFFERED);
+        final FileBackedTaskManager mapped = FileBackedTaskManager.loadFromFile(file, LoadMode.MAPPED);
+        assertEqualsListTasks(buffered.getAllTasks(), mapped.getAllTasks());
+        assertEqualsListTasks(buffered.getAllEpics(), mapped.getAllEpics());
+        assertEqualsListTasks(buffered.getAllSubtasks(), mapped.getAllSubtasks());
+        assertEquals(buffered.getAllTasks().get(1).getStartTime(), mapped.getAllTasks().get(1).getStartTime());
+        assertEquals(buffered.getAllSubtasks().get(0).getDuration(), mapped.getAllSubtasks().get(0).getDuration());
+    }
+
+    @Test
+    @DisplayName("Должен проверять параллельную загрузку, когда эпик подзадачи находится в другом фрагменте файла")
+    void shouldCheckParallelLoadingWithEpicInAnotherChunk() throws IOException {
+        final int rows = 70_000;
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        final StringBuilder content = new StringBuilder("id,type,name,status,description,epic,duration,startTime\n");
+        for (int id = 1; id < rows; id++) {
+            final String type = id % 2 == 0 ? "SUBTASK" : "TASK";
+            final String epicId = id % 2 == 0 ? String.valueOf(rows) : "null";
+            content.append(id).append(',').append(type).append(",Task").append(id).append(",DONE,Description,")
+                    .append(epicId).append(",PT10M,").append(start.plusMinutes(id * 15L)).append('\n');
+        }
+        content.append(rows).append(",EPIC,Epic,NEW,Description,null,PT0S,null\n");
+        Files.writeString(file, content);
+
+        final FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file, LoadMode.PARALLEL);
+        assertEquals(rows / 2, parallel.getAllTasks().size());
+        assertEquals(rows / 2 - 1, parallel.getAllSubtasks().size());
+        assertEquals(rows / 2 - 1, parallel.getAllSubtasksEpic(rows).size());
+
+        final Epic loadedEpic = parallel.getEpicById(rows);
+        assertEquals(TaskStatus.DONE, loadedEpic.getStatus());
+        assertEquals(start.plusMinutes(30), loadedEpic.getStartTime());
+        assertEquals(Duration.ofMinutes(10L * (rows / 2 - 1)), loadedEpic.getDuration());
+        assertEquals(rows - 1, parallel.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что при загрузке сообщается о каждой паре пересекающихся задач")
+    void shouldCheckLoadingReportsEveryIntersection() throws IOException {
+        Files.writeString(file, "id,type,name,status,description,epic,duration,startTime\n"
+                + "1,TASK,Task1,NEW,Description,null,PT1H,2024-06-27T10:00\n"
+                + "2,TASK,Task2,NEW,Description,null,PT30M,2024-06-27T10:30\n"
+                + "3,TASK,Task3,NEW,Description,null,PT1H,2024-06-27T11:00\n"
+                + "4,EPIC,Epic,NEW,Description,null,PT0S,null\n"
+                + "5,SUBTASK,Subtask,NEW,Description,4,PT2H,2024-06-27T11:30\n");
+
+        final ManagerLoadException exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(file));
+        assertEquals("Tasks intersect in time: 1 and 2, 3 and 5", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что подзадача без эпика в снимке не загружается молча")
+    void shouldCheckLoadingFailsOnSubtaskWithoutEpic() throws IOException {
+        Files.writeString(file, "id,type,name,status,description,epic,duration,startTime\n"
+                + "1,EPIC,Epic,NEW,Description,null,PT0S,null\n"
+                + "2,SUBTASK,Subtask1,NEW,Description,1,PT1H,2024-06-27T10:00\n"
+                + "3,SUBTASK,Subtask2,NEW,Description,7,PT1H,2024-06-27T12:00\n");
+
+        final ManagerLoadException exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(file));
+        assertEquals("Subtask 3 refers to missing epic 7", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Должен проверять сохранение и загрузку задачи нулевой длительности на границе другой")
+    void shouldCheckSavingAndLoadingZeroLengthTask() {
+        manager.createTask(new Task("Milestone", "Description", TaskStatus.NEW, "26.06.2024, 22:00:00", 0));
+        manager.applyBatch(new TaskBatch()
+                .create(new Task("Task3", "Description", TaskStatus.NEW, "27.06.2024, 10:00:00", 15))
+                .create(new Task("Milestone2", "Description", TaskStatus.NEW, "27.06.2024, 10:00:00", 0)));
+
+        final TaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(5, loaded.getAllTasks().size());
+        assertEqualsListTasks(manager.getAllTasks(), loaded.getAllTasks());
+        assertEqualsListTasks(manager.getPrioritizedTasks(), loaded.getPrioritizedTasks());
+    }
+
+    @Test
+    @DisplayName("Должен проверять ленивую загрузку названий и описаний задач")
+    void shouldCheckLazyLoading() {
+        final FileBackedTaskManager lazy = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL,
+                DurabilityPolicy.sync(), LoadMode.LAZY);
+        assertEqualsTask(task, lazy.getTaskById(task.getId()));
+        assertEquals(epic.getName(), lazy.getEpicById(epic.getId()).getName());
+
+        lazy.updateTask(new Task(task2.getId(), "newTask", "newDescription", TaskStatus.DONE,
+                task2.getStartTime(), task2.getDuration()));
+        assertEquals("newTask", lazy.getTaskById(task2.getId()).getName());
+        assertEqualsListTasks(manager.getAllSubtasks(), lazy.getAllSubtasks());
+        assertEqualsListTasks(manager.getAllEpics(), lazy.getAllEpics());
+        lazy.close();
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.JOURNAL);
+        assertEquals("newTask", loaded.getTaskById(task2.getId()).getName());
+        assertEqualsTask(task, loaded.getTaskById(task.getId()));
+        loaded.close();
+
+        final FileBackedTaskManager snapshot = FileBackedTaskManager.loadFromFile(file, LoadMode.LAZY);
+        snapshot.removeTaskById(task2.getId());
+        assertEqualsListTasks(manager.getAllSubtasks(), FileBackedTaskManager.loadFromFile(file).getAllSubtasks());
+    }
+
+    @Test
+    @DisplayName("Должен проверять постраничное хранение с перезаписью только измененных страниц")
+    void shouldCheckPagedStorage() throws IOException {
+        final FileBackedTaskManager paged = FileBackedTaskManager.loadFromFile(file, PersistenceMode.PAGED);
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            paged.createTask(new Task(null, "Task" + i, "Description".repeat(i % 7), TaskStatus.NEW,
+                    start.plusMinutes(i * 10L), Duration.ofMinutes(10)));
+        }
+        paged.createTask(new Task(null, "Large", "x".repeat(10_000), TaskStatus.NEW,
+                start.minusDays(1), Duration.ofMinutes(10)));
+        paged.updateSubtask(new Subtask(subtask.getId(), epic.getId(), "newSubtask", "Description",
+                TaskStatus.DONE, "26.06.2024, 20:00:00", 15));
+        paged.removeEpicById(epic2.getId());
+        paged.close();
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.PAGED);
+        assertEqualsListTasks(paged.getAllTasks(), loaded.getAllTasks());
+        assertEqualsListTasks(paged.getAllEpics(), loaded.getAllEpics());
+        assertEqualsListTasks(paged.getAllSubtasks(), loaded.getAllSubtasks());
+        assertEquals(paged.getEpicById(epic.getId()).getStatus(), loaded.getEpicById(epic.getId()).getStatus());
+
+        final long size = Files.size(file);
+        loaded.removeAllTasksFromManager();
+        loaded.removeAllSubtasksFromManager();
+        loaded.createTask(new Task(null, "Task", "Description", TaskStatus.NEW, start, Duration.ofMinutes(10)));
+        loaded.close();
+        assertEquals(size, Files.size(file));
+
+        loaded = FileBackedTaskManager.loadFromFile(file, PersistenceMode.PAGED);
+        assertEquals(1, loaded.getAllTasks().size());
+        assertEquals(0, loaded.getAllSubtasks().size());
+        assertEquals(TaskStatus.NEW, loaded.getEpicById(epic.getId()).getStatus());
+        assertEquals(null, loaded.getEpicById(epic.getId()).getStartTime());
+        loaded.close();
+    }
+
+    @Test
+    @DisplayName("Должен проверять восстановление снимка с поврежденными и недописанными строками")
+    void shouldCheckRecoveryOfDamagedSnapshot() throws IOException {
+        final List<String> lines = Files.readAllLines(file);
+        final int rows = lines.size() - 1;
+        assertTrue(FileBackedTaskManager.recover(file).isIntact());
+
+        final String last = lines.get(rows);
+        lines.set(rows, last.replaceFirst(",", ",9"));
+        Files.write(file, lines);
+        Files.writeString(file, "1,TASK,Torn", StandardOpenOption.APPEND);
+        assertThrows(ManagerLoadException.class, () -> FileBackedTaskManager.loadFromFile(file));
+
+        final RecoveryReport report = FileBackedTaskManager.recover(file);
+        assertFalse(report.isIntact());
+        assertEquals(rows - 1, report.getKeptRecords());
+        assertEquals(2, report.getDroppedRecords());
+        assertEquals(rows + 1, report.getFirstInvalidLine());
+        assertEquals(Files.size(file), report.getKeptBytes());
+
+        final FileBackedTaskManager recovered = FileBackedTaskManager.loadFromFile(file);
+        final int loaded = recovered.getAllTasks().size() + recovered.getAllEpics().size()
+                + recovered.getAllSubtasks().size();
+        assertEquals(rows - 1, loaded);
+    }
+
+    @Test
+    @DisplayName("Должен проверять сохранение и загрузку сжатого снимка")
+    void shouldCheckCompressedSnapshot() throws IOException {
+        final long plainSize = Files.size(file);
+        final FileBackedTaskManager compressed = FileBackedTaskManager.loadFromFile(file);
+        compressed.setCompressionLevel(9);
+        compressed.createTask(new Task(null, "Task", "Description", TaskStatus.NEW,
+                LocalDateTime.of(2030, 1, 1, 0, 0), Duration.ofMinutes(10)));
+        assertTrue(SnapshotFormat.isCompressed(file));
+        assertEquals(SnapshotFormat.CSV, SnapshotFormat.detect(file));
+        assertTrue(Files.size(file) < plainSize);
+
+        for (LoadMode loadMode : LoadMode.values()) {
+            final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, loadMode);
+            assertEqualsListTasks(compressed.getAllTasks(), loaded.getAllTasks());
+            assertEqualsListTasks(compressed.getAllEpics(), loaded.getAllEpics());
+            assertEqualsListTasks(compressed.getAllSubtasks(), loaded.getAllSubtasks());
+        }
+
+        final FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        loaded.setCompressionLevel(Deflater.NO_COMPRESSION);
+        loaded.removeTaskById(task.getId());
+        assertFalse(SnapshotFormat.isCompressed(file));
+        assertThrows(IllegalArgumentException.class, () -> loaded.setCompressionLevel(10));
+    }
+
+    @Test
+    @DisplayName("Должен проверять восстановление истории просмотров после перезапуска")
+    void shouldCheckHistoryPersistence() throws IOException {
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        loaded.getTaskById(task.getId());
+        loaded.getEpicById(epic.getId());
+        loaded.getSubtaskById(subtask.getId());
+        loaded.getTaskById(task.getId());
+        loaded.removeSubtaskById(subtask.getId());
+        loaded.close();
+
+        loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(List.of(epic.getId(), task.getId()),
+                loaded.getHistory().stream().map(Task::getId).toList());
+
+        for (int i = 0; i < 10_000; i++) {
+            loaded.getTaskById(i % 2 == 0 ? task.getId() : task2.getId());
+        }
+        loaded.close();
+        final Path history = file.resolveSibling(file.getFileName() + ".history");
+        assertTrue(Files.size(history) < 10_000);
+
+        loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(List.of(epic.getId(), task.getId(), task2.getId()),
+                loaded.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Должен проверять подключаемые хранилища: в памяти и бинарный снимок")
+    void shouldCheckPluggableStorageEngines() {
+        final MemoryStorage memory = new MemoryStorage();
+        final TaskManager stored = Managers.getDefaultStored(memory);
+        final Epic storedEpic = stored.createEpic(new Epic("Epic", "Description"));
+        stored.createSubtask(new Subtask(null, storedEpic.getId(), "Subtask", "Description",
+                TaskStatus.DONE, "26.06.2024, 20:00:00", 15));
+        stored.createTask(new Task(null, "Task", "Description", TaskStatus.NEW,
+                LocalDateTime.of(2030, 1, 1, 0, 0), Duration.ofMinutes(10)));
+        assertEquals(3, memory.getCommits());
+
+        TaskManager restarted = Managers.getDefaultStored(memory);
+        assertEqualsListTasks(stored.getAllTasks(), restarted.getAllTasks());
+        assertEqualsListTasks(stored.getAllSubtasks(), restarted.getAllSubtasks());
+        assertEquals(TaskStatus.DONE, restarted.getEpicById(storedEpic.getId()).getStatus());
+
+        restarted.removeEpicById(storedEpic.getId());
+        restarted = Managers.getDefaultStored(memory);
+        assertEquals(0, restarted.getAllEpics().size());
+        assertEquals(0, restarted.getAllSubtasks().size());
+        assertEquals(1, restarted.getAllTasks().size());
+
+        final Path binary = file.resolveSibling(file.getFileName() + ".bin");
+        final TaskManager binaryManager = Managers.getDefaultStored(
+                new SnapshotStorage(binary, SnapshotFormat.BINARY, LoadMode.BUFFERED));
+        binaryManager.createTask(new Task(null, "Task", "Description", TaskStatus.NEW,
+                LocalDateTime.of(2030, 1, 1, 0, 0), Duration.ofMinutes(10)));
+        assertEquals(SnapshotFormat.BINARY, SnapshotFormat.detect(binary));
+        assertEqualsListTasks(binaryManager.getAllTasks(), FileBackedTaskManager.loadFromFile(binary).getAllTasks());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что пакет изменений сохраняется одной фиксацией")
+    void shouldCheckBatchIsCommittedOnce() {
+        final MemoryStorage memory = new MemoryStorage();
+        final TaskManager stored = Managers.getDefaultStored(memory);
+        final Epic storedEpic = stored.createEpic(new Epic("Epic", "Description"));
+        final TaskBatch batch = new TaskBatch();
+        final LocalDateTime start = LocalDateTime.of(2030, 1, 1, 0, 0);
+        for (int i = 0; i < 100; i++) {
+            batch.create(new Task(null, "Task" + i, "Description", TaskStatus.NEW,
+                    start.plusMinutes(i * 10L), Duration.ofMinutes(10)));
+            batch.create(new Subtask(null, storedEpic.getId(), "Subtask" + i, "Description", TaskStatus.DONE,
+                    start.minusDays(1).plusMinutes(i * 10L), Duration.ofMinutes(10)));
+        }
+        stored.applyBatch(batch);
+        assertEquals(2, memory.getCommits());
+
+        final TaskManager restarted = Managers.getDefaultStored(memory);
+        assertEqualsListTasks(stored.getAllTasks(), restarted.getAllTasks());
+        assertEqualsListTasks(stored.getAllSubtasks(), restarted.getAllSubtasks());
+        assertEqualsTask(stored.getEpicById(storedEpic.getId()), restarted.getEpicById(storedEpic.getId()));
+    }
+
     private static void assertEqualsListTasks(List<? extends Task> expected, List<? extends Task> actual) {
         assertEquals(expected.size(), actual.size());
         for (int i = 0; i < expected.size(); i++) {
@@ -0,0 +1,187 @@
+package service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("TaskJournalTest")
+class TaskJournalTest {
+
+    private Path file;
+    private FailingChannel channel;
+    private TaskJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("journal", "csv");
+        journal = new TaskJournal(file, path -> channel = new FailingChannel(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что записи не теряются, если запись или fsync журнала не удались")
+    void shouldKeepRecordsWhenFlushFails() throws IOException {
+        journal.append("1");
+        journal.append("2");
+        channel.writeLimit = 0;
+        assertThrows(IOException.class, journal::flush);
+
+        channel.writeLimit = Integer.MAX_VALUE;
+        channel.failForce = true;
+        journal.append("3");
+        assertThrows(IOException.class, journal::flush);
+
+        channel.failForce = false;
+        journal.append("4");
+        journal.flush();
+        journal.close();
+
+        assertEquals(List.of("1", "2", "3", "4"), replay());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что повторная запись после сбоя продолжает оборванную строку")
+    void shouldResumeTornWriteOnRetry() throws IOException {
+        journal.append("first record");
+        journal.append("second record");
+        channel.writeLimit = 5;
+        assertThrows(IOException.class, journal::flush);
+
+        channel.writeLimit = Integer.MAX_VALUE;
+        journal.flush();
+        journal.close();
+
+        assertEquals(List.of("first record", "second record"), replay());
+    }
+
+    private List<String> replay() {
+        final List<String> records = new ArrayList<>();
+        new TaskJournal(file).replay(records::add);
+        return records;
+    }
+
+    // Passes everything to a real channel, but can fail fsync or stop writing after a number of bytes
+    private static class FailingChannel extends FileChannel {
+        private final FileChannel channel;
+        private boolean failForce;
+        private int writeLimit = Integer.MAX_VALUE;
+
+        FailingChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (writeLimit <= 0) {
+                throw new IOException("No space left on device");
+            }
+            final ByteBuffer part = src.duplicate();
+            part.limit(part.position() + Math.min(part.remaining(), writeLimit));
+            final int count = channel.write(part);
+            src.position(src.position() + count);
+            writeLimit -= count;
+            return count;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            if (failForce) {
+                throw new IOException("Input/output error");
+            }
+            channel.force(metaData);
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return channel.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return channel.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long position() throws IOException {
+            return channel.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            channel.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return channel.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            channel.truncate(size);
+            return this;
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return channel.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return channel.read(dst, position);
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return channel.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return channel.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return channel.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            channel.close();
+        }
+    }
+}
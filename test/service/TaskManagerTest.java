@@ -6,9 +6,11 @@ import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.TaskStatus;
+import model.TaskType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -188,6 +190,40 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEquals(subtask.getEndTime(), epic.getEndTime());
     }
 
+    @Test
+    @DisplayName("Должен проверять пересчет эпика после изменения сохраненной подзадачи на месте")
+    void shouldCheckEpicAfterUpdatingStoredSubtaskInPlace() {
+        for (Subtask stored : List.of(manager.getSubtaskById(subtask.getId()),
+                manager.getSubtaskById(subtask2.getId()))) {
+            stored.setStatus(TaskStatus.DONE);
+            stored.setDuration(Duration.ofMinutes(30));
+            stored.setEndTime(stored.getStartTime().plusMinutes(30));
+            manager.updateSubtask(stored);
+        }
+
+        final Epic savedEpic = manager.getEpicById(epic.getId());
+        assertEquals(TaskStatus.DONE, savedEpic.getStatus());
+        assertEquals(Duration.ofMinutes(60), savedEpic.getDuration());
+        assertEquals(subtask2.getStartTime(), savedEpic.getStartTime());
+        assertEquals(subtask.getStartTime().plusMinutes(30), savedEpic.getEndTime());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что задачи без id и подзадачи без эпика не найдены")
+    void shouldCheckTasksWithoutIdsAreNotFound() {
+        Subtask subtaskWithoutEpic = new Subtask(null, "Subtask", "Description", TaskStatus.NEW,
+                "27.06.2024, 09:00:00", 15);
+        Task taskWithoutId = new Task("Task", "Description", TaskStatus.NEW,
+                "27.06.2024, 10:00:00", 15);
+
+        assertThrows(NotFoundException.class, () -> manager.createSubtask(subtaskWithoutEpic));
+        assertThrows(NotFoundException.class, () -> manager.updateSubtask(subtaskWithoutEpic));
+        assertThrows(NotFoundException.class, () -> manager.updateTask(taskWithoutId));
+        assertThrows(NotFoundException.class, () -> manager.updateEpic(new Epic("Epic", "Description")));
+        assertThrows(NotFoundException.class, () -> manager.getTaskById(null));
+        assertThrows(NotFoundException.class, () -> manager.removeSubtaskById(null));
+    }
+
     @Test
     @DisplayName("Должен проверять удаление задачи по id из списка")
     void shouldCheckRemoveTaskById() {
@@ -236,6 +272,31 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertThrows(ValidationException.class, () -> manager.createSubtask(intersectingSubtask));
     }
 
+    @Test
+    @DisplayName("Должен проверять, что после удаления эпика время его подзадач освобождается")
+    void shouldCheckTimeOfRemovedEpicSubtasksIsFree() {
+        manager.removeEpicById(epic.getId());
+        Task taskAtSubtaskTime = new Task("Task3", "Description", TaskStatus.NEW,
+                "26.06.2024, 20:05:00", 15);
+
+        assertDoesNotThrow(() -> manager.createTask(taskAtSubtaskTime));
+        assertEquals(3, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что после переноса хранимой задачи её прежнее время освобождается")
+    void shouldCheckTimeOfMovedStoredTaskIsFree() {
+        final Task stored = manager.getTaskById(task.getId());
+        stored.setStartTime(stored.getStartTime().minusHours(1));
+        stored.setEndTime(stored.getEndTime().minusHours(1));
+        manager.updateTask(stored);
+
+        assertEquals(4, manager.getPrioritizedTasks().size());
+        Task taskAtOldTime = new Task("Task3", "Description", TaskStatus.NEW,
+                "26.06.2024, 22:05:00", 15);
+        assertDoesNotThrow(() -> manager.createTask(taskAtOldTime));
+    }
+
     @Test
     @DisplayName("Должен проверять, что список хранит отсортироаванные по времени задачи и подзадачи ")
     void shouldCheckSortedListOfTasks() {
@@ -245,6 +306,111 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertEqualsTask(task, sortedList.getLast());
     }
 
+    @Test
+    @DisplayName("Должен проверять применение пакета изменений целиком")
+    void shouldCheckApplyingBatch() {
+        final Task created = new Task("Task3", "Description", TaskStatus.NEW, "26.06.2024, 10:00:00", 15);
+        final Subtask createdSubtask = new Subtask(epic2.getId(), "Subtask1ForEpic2", "Description",
+                TaskStatus.DONE, "26.06.2024, 11:00:00", 15);
+        final TaskBatch batch = new TaskBatch()
+                .create(created)
+                .create(createdSubtask)
+                .update(new Task(task2.getId(), "Task2", "Description", TaskStatus.DONE, "26.06.2024, 12:00:00", 15))
+                .update(new Subtask(subtask.getId(), epic.getId(), "Subtask1ForEpic1", "Description",
+                        TaskStatus.DONE, "26.06.2024, 18:00:00", 15))
+                .delete(task.getId());
+
+        final List<Task> results = manager.applyBatch(batch);
+
+        assertEquals(5, results.size());
+        assertNotNull(results.get(0).getId());
+        assertEquals(task.getId(), results.get(4).getId());
+        assertEquals(2, manager.getAllTasks().size());
+        assertEquals(3, manager.getAllSubtasks().size());
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic2.getId()).getStatus());
+        assertEquals(createdSubtask.getStartTime(), manager.getEpicById(epic2.getId()).getStartTime());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(subtask2.getId(), created.getId(), createdSubtask.getId(), task2.getId(),
+                subtask.getId()), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что пакет с пересечением по времени не применяется совсем")
+    void shouldCheckRejectedBatchChangesNothing() {
+        final List<Task> prioritized = manager.getPrioritizedTasks();
+        final TaskBatch batch = new TaskBatch()
+                .create(new Task("Task3", "Description", TaskStatus.NEW, "26.06.2024, 10:00:00", 15))
+                .delete(subtask2.getId())
+                .update(new Task(task2.getId(), "Task2", "Description", TaskStatus.DONE, "26.06.2024, 20:05:00", 15));
+
+        assertThrows(ValidationException.class, () -> manager.applyBatch(batch));
+        assertThrows(ValidationException.class, () -> manager.applyBatch(new TaskBatch()
+                .delete(task.getId())
+                .delete(task.getId())));
+        assertThrows(NotFoundException.class, () -> manager.applyBatch(new TaskBatch()
+                .delete(epic.getId())
+                .update(new Subtask(subtask.getId(), epic.getId(), "Subtask1ForEpic1", "Description",
+                        TaskStatus.DONE, "26.06.2024, 18:00:00", 15))
+                .delete(-1)));
+
+        assertEquals(2, manager.getAllTasks().size());
+        assertEquals(2, manager.getAllSubtasks().size());
+        assertEquals(prioritized.stream().map(Task::getId).toList(),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        final Task next = manager.createTask(new Task("Task3", "Description", TaskStatus.NEW,
+                "26.06.2024, 10:00:00", 15));
+        assertEquals(epic2.getId() + 1, next.getId());
+    }
+
+    @Test
+    @DisplayName("Должен проверять версии менеджера и его коллекций")
+    void shouldCheckVersions() {
+        final long version = manager.getVersion();
+        final long tasksVersion = manager.getVersion(TaskType.TASK);
+        final long epicsVersion = manager.getVersion(TaskType.EPIC);
+        final long historyVersion = manager.getHistoryVersion();
+
+        manager.updateSubtask(new Subtask(subtask.getId(), epic.getId(), "Subtask1ForEpic1", "Description",
+                TaskStatus.DONE, "26.06.2024, 20:00:00", 15));
+        assertTrue(manager.getVersion() > version);
+        assertTrue(manager.getVersion(TaskType.EPIC) > epicsVersion);
+        assertEquals(manager.getVersion(), manager.getVersion(TaskType.SUBTASK));
+        assertEquals(tasksVersion, manager.getVersion(TaskType.TASK));
+
+        final long current = manager.getVersion();
+        manager.getTaskById(task.getId());
+        assertThrows(ValidationException.class, () -> manager.createTask(new Task("Task3", "Description",
+                TaskStatus.NEW, "26.06.2024, 22:05:00", 15)));
+        assertEquals(current, manager.getVersion());
+        assertTrue(manager.getHistoryVersion() > historyVersion);
+
+        manager.removeTaskById(task2.getId());
+        assertEquals(manager.getVersion(), manager.getVersion(TaskType.TASK));
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что изменение задачи меняет ревизию только ее самой и ее эпика")
+    void shouldCheckRevisions() {
+        final long taskRevision = manager.getRevision(task.getId());
+        final long task2Revision = manager.getRevision(task2.getId());
+        final long epicRevision = manager.getRevision(epic.getId());
+        final long epic2Revision = manager.getRevision(epic2.getId());
+
+        manager.updateTask(new Task(task.getId(), "newTask", "newDescription", TaskStatus.DONE,
+                "26.06.2024, 22:00:00", 15));
+        assertTrue(manager.getRevision(task.getId()) > taskRevision);
+        assertEquals(manager.getVersion(), manager.getRevision(task.getId()));
+        assertEquals(task2Revision, manager.getRevision(task2.getId()));
+
+        final Subtask stored = manager.getSubtaskById(subtask.getId());
+        stored.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(stored);
+        assertEquals(manager.getVersion(), manager.getRevision(subtask.getId()));
+        assertEquals(manager.getVersion(), manager.getRevision(epic.getId()));
+        assertTrue(manager.getRevision(epic.getId()) > epicRevision);
+        assertEquals(epic2Revision, manager.getRevision(epic2.getId()));
+    }
+
     protected static void assertEqualsTask(Task expected, Task actual) {
         assertEquals(expected.getId(), actual.getId());
         assertEquals(expected.getName(), actual.getName());
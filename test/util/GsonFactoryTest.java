@@ -0,0 +1,65 @@
+package util;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.TaskStatus;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("GsonFactoryTest")
+class GsonFactoryTest {
+
+    private final Gson gson = GsonFactory.createGson();
+
+    @Test
+    @DisplayName("Должен проверять сериализацию задач без рефлексии")
+    void shouldCheckTaskJson() {
+        final Subtask subtask = new Subtask(5, 1, "Subtask", "Description", TaskStatus.NEW,
+                "26.06.2024, 20:00:00", 15);
+        final String json = "{\"epicId\":1,\"id\":5,\"name\":\"Subtask\",\"description\":\"Description\","
+                + "\"status\":\"NEW\",\"startTime\":\"2024-06-26T20:00:00\",\"duration\":\"PT15M\","
+                + "\"endTime\":\"2024-06-26T20:15:00\"}";
+
+        assertEquals(json, gson.toJson(subtask));
+        assertEquals("[" + json + "]", gson.toJson(List.<Task>of(subtask)));
+        final Subtask parsed = gson.fromJson(json, Subtask.class);
+        assertEquals(subtask.getEpicId(), parsed.getEpicId());
+        assertEquals(subtask.getStartTime(), parsed.getStartTime());
+        assertEquals(subtask.getEndTime(), parsed.getEndTime());
+
+        final Task task = gson.fromJson(json, Task.class);
+        assertEquals(Task.class, task.getClass());
+        assertEquals(subtask.getDuration(), task.getDuration());
+
+        final List<Task> tasks = gson.fromJson("[null]", new TypeToken<List<Task>>() {}.getType());
+        assertNull(tasks.get(0));
+        assertThrows(JsonSyntaxException.class, () -> gson.fromJson("{\"status\":\"LATER\"}", Task.class));
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что прочитанный эпик готов к работе с подзадачами")
+    void shouldCheckEpicJson() {
+        final Epic epic = gson.fromJson("{\"id\":3,\"name\":\"Epic\",\"description\":\"Description\"}", Epic.class);
+
+        assertEquals(3, epic.getId());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertFalse(epic.hasSubtasks());
+        epic.addSubtask(new Subtask(4, 3, "Subtask", "Description", TaskStatus.DONE,
+                "26.06.2024, 20:00:00", 15));
+        assertTrue(epic.hasSubtasks());
+        assertEquals(TaskStatus.DONE, epic.getSubtasksStatus());
+        assertFalse(gson.toJson(epic).contains("subtasks"));
+    }
+}
@@ -0,0 +1,42 @@
+package util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayName("IntLongHashMapTest")
+class IntLongHashMapTest {
+
+    @Test
+    @DisplayName("Должен проверять, что карта ведет себя так же, как HashMap")
+    void shouldBehaveLikeHashMap() {
+        final Random random = new Random(11);
+        final IntLongHashMap map = new IntLongHashMap();
+        final Map<Integer, Long> expected = new HashMap<>();
+
+        for (int step = 0; step < 100_000; step++) {
+            final int key = random.nextInt(2_000) - 500;
+            if (random.nextInt(3) == 0) {
+                assertEquals((long) expected.getOrDefault(key, -1L), map.remove(key, -1));
+                expected.remove(key);
+            } else {
+                final long value = random.nextLong();
+                expected.put(key, value);
+                map.put(key, value);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -500; key < 1_500; key++) {
+            assertEquals((long) expected.getOrDefault(key, Long.MIN_VALUE), map.get(key, Long.MIN_VALUE));
+        }
+        map.clear();
+        assertFalse(map.containsKey(0));
+        assertEquals(0, map.size());
+    }
+}
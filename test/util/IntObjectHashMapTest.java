@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DisplayName("IntObjectHashMapTest")
+class IntObjectHashMapTest {
+
+    @Test
+    @DisplayName("Должен проверять, что карта ведет себя так же, как HashMap")
+    void shouldBehaveLikeHashMap() {
+        final Random random = new Random(7);
+        final IntObjectHashMap<String> map = new IntObjectHashMap<>();
+        final Map<Integer, String> expected = new HashMap<>();
+
+        for (int step = 0; step < 100_000; step++) {
+            final int key = random.nextInt(2_000) - 500;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                final String value = "value" + step;
+                assertEquals(expected.put(key, value), map.put(key, value));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -500; key < 1_500; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(new ArrayList<>(expected.values()).size(), map.values().size());
+    }
+
+    @Test
+    @DisplayName("Должен проверять, что последовательные ключи обходятся по возрастанию")
+    void shouldIterateDenseKeysInAscendingOrder() {
+        final IntObjectHashMap<Integer> map = new IntObjectHashMap<>();
+        for (int key = 100; key > 0; key--) {
+            map.put(key, key);
+        }
+        final List<Integer> values = map.values();
+        for (int i = 0; i < values.size(); i++) {
+            final int value = values.get(i);
+            assertEquals(i + 1, value);
+        }
+        map.clear();
+        assertNull(map.get(1));
+        assertEquals(0, map.keys().length);
+    }
+}